@@ -0,0 +1,293 @@
+package com.pa.proj2020.adts.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the undo log of {@link DigraphImpl} by applying random changes, some
+ * of them inside transactions that are committed or rolled back, to the
+ * digraph and to a model made of plain collections, and comparing both.
+ */
+class DigraphImplTransactionTest {
+
+    private static final int OPERATIONS = 20_000;
+
+    @Test
+    void randomChangesMatchModel() {
+        runAgainstModel(new DigraphImpl<>(), new Random(1));
+    }
+
+    @Test
+    void randomChangesMatchModelWithAdjacencyIndexAndFilter() {
+        DigraphImpl<String, Integer> digraph = new DigraphImpl<>();
+        digraph.setAdjacencyIndex(true);
+        digraph.setAdjacencyFilter(true);
+        runAgainstModel(digraph, new Random(2));
+    }
+
+    @Test
+    void rollbackRestoresReplacedElement() {
+        DigraphImpl<String, Integer> digraph = new DigraphImpl<>();
+        Vertex<String> a = digraph.insertVertex("a");
+
+        digraph.begin();
+        digraph.replace(a, "b");
+        assertSame(a, digraph.vertexOf("b"));
+        digraph.rollback();
+
+        assertEquals("a", a.element());
+        assertSame(a, digraph.vertexOf("a"));
+        assertNull(digraph.vertexOf("b"));
+    }
+
+    @Test
+    void rollbackUndoesInsertAll() {
+        DigraphImpl<String, Integer> digraph = new DigraphImpl<>();
+        Vertex<String> a = digraph.insertVertex("a");
+        Vertex<String> b = digraph.insertVertex("b");
+        digraph.insertEdge(a, b, 0);
+
+        digraph.begin();
+        digraph.insertAll(new DigraphBuilder<String, Integer>()
+                .addVertex("b").addVertex("c").addVertex("d")
+                .addEdge("a", "b", 1).addEdge("b", "c", 2).addEdge("c", "d", 3).addEdge("c", "d", 4));
+        assertEquals(4, digraph.numVertices());
+        assertEquals(3, digraph.numEdges());
+        assertEquals(3, (int) digraph.findEdge("c", "d").get().element());
+        digraph.rollback();
+
+        assertEquals(2, digraph.numVertices());
+        assertEquals(1, digraph.numEdges());
+        assertNull(digraph.vertexOf("c"));
+        assertEquals(0, digraph.edgeBetween(a, b).element());
+    }
+
+    @Test
+    void failedInsertAllChangesNothing() {
+        DigraphImpl<String, Integer> digraph = new DigraphImpl<>();
+        digraph.insertVertex("a");
+
+        assertThrows(InvalidVertexException.class, () -> digraph.insertAll(new DigraphBuilder<String, Integer>()
+                .addVertex("b").addEdge("a", "b", 1).addEdge("b", "x", 2)));
+
+        assertFalse(digraph.inTransaction());
+        assertEquals(1, digraph.numVertices());
+        assertEquals(0, digraph.numEdges());
+    }
+
+    @Test
+    void transactionsCannotNest() {
+        DigraphImpl<String, Integer> digraph = new DigraphImpl<>();
+        assertThrows(IllegalStateException.class, digraph::commit);
+        assertThrows(IllegalStateException.class, digraph::rollback);
+
+        digraph.begin();
+        assertTrue(digraph.inTransaction());
+        assertThrows(IllegalStateException.class, digraph::begin);
+        digraph.commit();
+        assertFalse(digraph.inTransaction());
+    }
+
+    @Test
+    void listenersOnlySeeCommittedChanges() {
+        DigraphImpl<String, Integer> digraph = new DigraphImpl<>();
+        List<GraphEvent<String, Integer>> seen = new ArrayList<>();
+        digraph.addGraphListener(seen::addAll);
+
+        digraph.begin();
+        digraph.insertVertex("a");
+        digraph.rollback();
+        assertTrue(seen.isEmpty());
+
+        digraph.begin();
+        digraph.insertVertex("b");
+        digraph.insertVertex("c");
+        assertTrue(seen.isEmpty());
+        digraph.commit();
+        assertEquals(2, seen.size());
+    }
+
+    /**
+     * Model of a digraph: the vertex elements and, by "outbound inbound", the
+     * element of the edge between them
+     */
+    private static final class Model {
+
+        final Set<String> vertices = new HashSet<>();
+        final Map<String, Integer> edges = new HashMap<>();
+
+        Model copy() {
+            Model copy = new Model();
+            copy.vertices.addAll(vertices);
+            copy.edges.putAll(edges);
+            return copy;
+        }
+
+        static String key(String outbound, String inbound) {
+            return outbound + " " + inbound;
+        }
+    }
+
+    private static void runAgainstModel(DigraphImpl<String, Integer> digraph, Random random) {
+        Model model = new Model();
+        Model committed = null;
+        List<String> names = new ArrayList<>();
+        int nextName = 0;
+        int nextEdge = 0;
+
+        for (int op = 0; op < OPERATIONS; op++) {
+            int choice = random.nextInt(100);
+            if (choice < 3) {
+                if (committed == null) {
+                    digraph.begin();
+                    committed = model.copy();
+                } else if (random.nextBoolean()) {
+                    digraph.commit();
+                    committed = null;
+                } else {
+                    digraph.rollback();
+                    model = committed;
+                    committed = null;
+                }
+            } else if (choice < 25) {
+                String name = "v" + nextName++;
+                names.add(name);
+                digraph.insertVertex(name);
+                model.vertices.add(name);
+            } else if (choice < 55) {
+                String out = pick(names, random);
+                String in = pick(names, random);
+                boolean expected = model.vertices.contains(out) && model.vertices.contains(in)
+                        && !model.edges.containsKey(Model.key(out, in));
+                int element = nextEdge++;
+                assertEquals(expected, digraph.tryInsertEdge(out, in, element).isPresent());
+                if (expected) model.edges.put(Model.key(out, in), element);
+            } else if (choice < 70) {
+                String out = pick(names, random);
+                String in = pick(names, random);
+                Optional<Edge<Integer, String>> edge = digraph.findEdge(out, in);
+                assertEquals(model.edges.containsKey(Model.key(out, in)), edge.isPresent());
+                if (edge.isPresent()) {
+                    digraph.removeEdge(edge.get());
+                    model.edges.remove(Model.key(out, in));
+                }
+            } else if (choice < 80) {
+                String name = pick(names, random);
+                Optional<Vertex<String>> vertex = digraph.findVertex(name);
+                assertEquals(model.vertices.contains(name), vertex.isPresent());
+                if (vertex.isPresent()) {
+                    digraph.removeVertex(vertex.get());
+                    model.vertices.remove(name);
+                    model.edges.keySet().removeIf(key -> key.startsWith(name + " ") || key.endsWith(" " + name));
+                }
+            } else if (choice < 90) {
+                String name = pick(names, random);
+                Optional<Vertex<String>> vertex = digraph.findVertex(name);
+                if (vertex.isPresent()) {
+                    String newName = "v" + nextName++;
+                    names.add(newName);
+                    digraph.replace(vertex.get(), newName);
+                    rename(model, name, newName);
+                }
+            } else if (choice < 92) {
+                nextName = insertAll(digraph, model, names, random, nextName, nextEdge);
+                nextEdge += 8;
+            } else {
+                check(digraph, model, names, random);
+            }
+        }
+        if (committed != null) {
+            digraph.rollback();
+            model = committed;
+        }
+        check(digraph, model, names, random);
+    }
+
+    private static String pick(List<String> names, Random random) {
+        return names.isEmpty() ? "none" : names.get(random.nextInt(names.size()));
+    }
+
+    private static void rename(Model model, String name, String newName) {
+        model.vertices.remove(name);
+        model.vertices.add(newName);
+        Map<String, Integer> renamed = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : model.edges.entrySet()) {
+            String[] ends = entry.getKey().split(" ");
+            String out = ends[0].equals(name) ? newName : ends[0];
+            String in = ends[1].equals(name) ? newName : ends[1];
+            renamed.put(Model.key(out, in), entry.getValue());
+        }
+        model.edges.clear();
+        model.edges.putAll(renamed);
+    }
+
+    /* loads a few new vertices, some present ones and edges between both */
+    private static int insertAll(DigraphImpl<String, Integer> digraph, Model model, List<String> names,
+                                 Random random, int nextName, int nextEdge) {
+        DigraphBuilder<String, Integer> builder = new DigraphBuilder<>();
+        List<String> ends = new ArrayList<>(model.vertices);
+        for (int i = 0; i < 4; i++) {
+            String name = "v" + nextName++;
+            names.add(name);
+            builder.addVertex(name);
+            ends.add(name);
+            if (!model.vertices.isEmpty()) builder.addVertex(pick(new ArrayList<>(model.vertices), random));
+        }
+        List<String[]> triples = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String out = ends.get(random.nextInt(ends.size()));
+            String in = ends.get(random.nextInt(ends.size()));
+            builder.addEdge(out, in, nextEdge + i);
+            triples.add(new String[]{out, in});
+        }
+        digraph.insertAll(builder);
+
+        for (int i = 0; i < builder.numVertices(); i++) model.vertices.add(builder.vertexElement(i));
+        for (int i = 0; i < triples.size(); i++) {
+            model.edges.putIfAbsent(Model.key(triples.get(i)[0], triples.get(i)[1]), nextEdge + i);
+        }
+        return nextName;
+    }
+
+    private static void check(DigraphImpl<String, Integer> digraph, Model model, List<String> names, Random random) {
+        assertEquals(model.vertices.size(), digraph.numVertices());
+        assertEquals(model.edges.size(), digraph.numEdges());
+
+        Set<String> vertices = new HashSet<>();
+        for (Vertex<String> v : digraph.vertices()) vertices.add(v.element());
+        assertEquals(model.vertices, vertices);
+
+        Map<String, Integer> edges = new HashMap<>();
+        for (Edge<Integer, String> e : digraph.edges()) {
+            Vertex<String>[] ends = e.vertices();
+            edges.put(Model.key(ends[0].element(), ends[1].element()), e.element());
+        }
+        assertEquals(model.edges, edges);
+
+        for (int i = 0; i < 50 && !names.isEmpty(); i++) {
+            String out = pick(names, random);
+            String in = pick(names, random);
+            Vertex<String> outVertex = digraph.vertexOf(out);
+            Vertex<String> inVertex = digraph.vertexOf(in);
+            assertEquals(model.vertices.contains(out), outVertex != null);
+            assertEquals(model.vertices.contains(in), inVertex != null);
+            if (outVertex == null || inVertex == null) continue;
+
+            assertEquals(out, outVertex.element());
+            Integer element = model.edges.get(Model.key(out, in));
+            assertEquals(element != null, digraph.areAdjacent(outVertex, inVertex));
+            Edge<Integer, String> edge = digraph.edgeBetween(outVertex, inVertex);
+            assertEquals(element, edge == null ? null : edge.element());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.pa.proj2020.adts.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks {@link LongIntHashMap}, mainly its backward-shift deletion, against a
+ * {@link HashMap} under random puts and removes.
+ */
+class LongIntHashMapTest {
+
+    @Test
+    void emptyMapHasNoBindings() {
+        LongIntHashMap map = new LongIntHashMap();
+        assertEquals(0, map.size());
+        assertEquals(-1, map.get(42, -1));
+        assertFalse(map.containsKey(42));
+        assertFalse(map.remove(42));
+    }
+
+    @Test
+    void putReplacesPreviousBinding() {
+        LongIntHashMap map = new LongIntHashMap();
+        map.put(7, 1);
+        map.put(7, 2);
+        assertEquals(1, map.size());
+        assertEquals(2, map.get(7, -1));
+    }
+
+    @Test
+    void randomChangesOnFewKeysMatchHashMap() {
+        /* few keys and many removals keep long probe sequences shifting back */
+        runAgainstHashMap(new LongIntHashMap(), new Random(1), 64);
+    }
+
+    @Test
+    void randomChangesOnManyKeysMatchHashMap() {
+        runAgainstHashMap(new LongIntHashMap(4), new Random(2), 1L << 40);
+    }
+
+    @Test
+    void ensureCapacityKeepsBindings() {
+        LongIntHashMap map = new LongIntHashMap();
+        for (int i = 0; i < 100; i++) map.put(i * 31L, i);
+        map.ensureCapacity(10_000);
+        assertEquals(100, map.size());
+        for (int i = 0; i < 100; i++) assertEquals(i, map.get(i * 31L, -1));
+    }
+
+    private static void runAgainstHashMap(LongIntHashMap map, Random random, long keyRange) {
+        Map<Long, Integer> model = new HashMap<>();
+        for (int op = 0; op < 200_000; op++) {
+            long key = (long) (random.nextDouble() * keyRange) - keyRange / 2;
+            if (random.nextInt(3) == 0) {
+                assertEquals(model.remove(key) != null, map.remove(key));
+            } else {
+                int value = random.nextInt();
+                map.put(key, value);
+                model.put(key, value);
+            }
+            assertEquals(model.size(), map.size());
+
+            long probe = (long) (random.nextDouble() * keyRange) - keyRange / 2;
+            assertEquals(model.containsKey(probe), map.containsKey(probe));
+            assertEquals((int) model.getOrDefault(probe, -1), map.get(probe, -1));
+        }
+        for (Map.Entry<Long, Integer> entry : model.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey(), entry.getValue() + 1));
+        }
+    }
+}
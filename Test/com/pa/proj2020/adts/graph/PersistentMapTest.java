@@ -0,0 +1,152 @@
+package com.pa.proj2020.adts.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the {@link PersistentMap} trie against a {@link HashMap} under
+ * random puts and removes, including keys whose hashes collide, and checks
+ * that earlier versions of the map are never changed.
+ */
+class PersistentMapTest {
+
+    /**
+     * Key with a chosen hash code, so that full hash collisions can be forced
+     */
+    private static final class Key {
+
+        final int id;
+        final int hash;
+
+        Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" + id + '}';
+        }
+    }
+
+    @Test
+    void emptyMapHasNoBindings() {
+        PersistentMap<String, Integer> map = PersistentMap.empty();
+        assertTrue(map.isEmpty());
+        assertNull(map.get("a"));
+        assertSame(map, map.remove("a"));
+        assertTrue(map.values().isEmpty());
+    }
+
+    @Test
+    void updatesLeaveEarlierVersionsUnchanged() {
+        PersistentMap<String, Integer> empty = PersistentMap.empty();
+        PersistentMap<String, Integer> one = empty.put("a", 1);
+        PersistentMap<String, Integer> two = one.put("b", 2);
+        PersistentMap<String, Integer> replaced = two.put("a", 3);
+        PersistentMap<String, Integer> removed = replaced.remove("b");
+
+        assertTrue(empty.isEmpty());
+        assertEquals(1, one.size());
+        assertEquals(1, (int) one.get("a"));
+        assertNull(one.get("b"));
+        assertEquals(2, two.size());
+        assertEquals(1, (int) two.get("a"));
+        assertEquals(3, (int) replaced.get("a"));
+        assertEquals(2, (int) replaced.get("b"));
+        assertEquals(1, removed.size());
+        assertNull(removed.get("b"));
+    }
+
+    @Test
+    void collidingKeysAreKeptApart() {
+        Key a = new Key(1, 17);
+        Key b = new Key(2, 17);
+        Key c = new Key(3, 17);
+        PersistentMap<Key, String> map = PersistentMap.<Key, String>empty().put(a, "a").put(b, "b").put(c, "c");
+
+        assertEquals(3, map.size());
+        assertEquals("b", map.get(b));
+        PersistentMap<Key, String> withoutB = map.remove(b);
+        assertEquals(2, withoutB.size());
+        assertNull(withoutB.get(b));
+        assertEquals("a", withoutB.get(a));
+        assertEquals("c", withoutB.get(c));
+        assertEquals("b", map.get(b));
+    }
+
+    @Test
+    void randomChangesMatchHashMap() {
+        /* few distinct hashes, so that collision nodes and deep tries both occur */
+        runAgainstHashMap(new Random(1), 4_000, 1_000);
+    }
+
+    @Test
+    void randomChangesOnSpreadHashesMatchHashMap() {
+        runAgainstHashMap(new Random(2), 20_000, Integer.MAX_VALUE);
+    }
+
+    private static void runAgainstHashMap(Random random, int keys, int hashes) {
+        Key[] pool = new Key[keys];
+        for (int i = 0; i < keys; i++) pool[i] = new Key(i, random.nextInt(hashes));
+
+        Map<Key, Integer> model = new HashMap<>();
+        PersistentMap<Key, Integer> map = PersistentMap.empty();
+        List<PersistentMap<Key, Integer>> versions = new ArrayList<>();
+        List<Map<Key, Integer>> models = new ArrayList<>();
+
+        for (int op = 0; op < 100_000; op++) {
+            Key key = pool[random.nextInt(keys)];
+            if (random.nextInt(3) == 0) {
+                PersistentMap<Key, Integer> next = map.remove(key);
+                assertEquals(model.remove(key) == null, next == map);
+                map = next;
+            } else {
+                int value = random.nextInt(1_000);
+                map = map.put(key, value);
+                model.put(key, value);
+            }
+            assertEquals(model.size(), map.size());
+            Key probe = pool[random.nextInt(keys)];
+            assertEquals(model.get(probe), map.get(probe));
+
+            if (op % 10_000 == 0) {
+                versions.add(map);
+                models.add(new HashMap<>(model));
+            }
+        }
+        versions.add(map);
+        models.add(model);
+
+        for (int i = 0; i < versions.size(); i++) {
+            PersistentMap<Key, Integer> version = versions.get(i);
+            Map<Key, Integer> expected = models.get(i);
+            assertEquals(expected.size(), version.size());
+            for (Map.Entry<Key, Integer> entry : expected.entrySet()) {
+                assertEquals(entry.getValue(), version.get(entry.getKey()));
+            }
+            List<Integer> values = new ArrayList<>(version.values());
+            List<Integer> expectedValues = new ArrayList<>(expected.values());
+            values.sort(null);
+            expectedValues.sort(null);
+            assertEquals(expectedValues, values);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Prints the time taken by {@link DigraphImpl#areAdjacent(Vertex, Vertex)}
+ * on sparse random digraphs, scanning the adjacency arrays or probing the
+ * adjacency index, each with and without the adjacency filter, for random
+ * vertex pairs (almost all of them not adjacent) and for adjacent pairs.
+ * <br>
+ * Run with enough heap for the largest digraph, e.g. <code>-Xmx2g</code>.
+ */
+final class AdjacencyBenchmark {
+
+    private static final int[][] SIZES = {{10_000, 30_000}, {100_000, 300_000}, {1_000_000, 3_000_000}};
+    private static final int QUERIES = 4_000_000;
+    private static final int ROUNDS = 5;
+
+    private AdjacencyBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%9s %9s | %-35s | %-35s%n", "vertices", "edges",
+                "random pairs (ns)", "adjacent pairs (ns)");
+        System.out.printf("%9s %9s |%s |%s%n", "", "", columns(), columns());
+        for (int[] size : SIZES) {
+            Random random = new Random(size[1]);
+            DigraphImpl<Integer, Integer> digraph = new DigraphImpl<>(size[0], size[1]);
+            List<Vertex<Integer>> vertices = new ArrayList<>(size[0]);
+            for (int i = 0; i < size[0]; i++) vertices.add(digraph.insertVertex(i));
+            List<Edge<Integer, Integer>> edges = new ArrayList<>(size[1]);
+            while (edges.size() < size[1]) {
+                digraph.tryInsertEdge(random.nextInt(size[0]), random.nextInt(size[0]), edges.size())
+                        .ifPresent(edges::add);
+            }
+
+            Vertex<Integer>[] randomPairs = pairs(QUERIES);
+            for (int i = 0; i < QUERIES; i++) {
+                randomPairs[2 * i] = vertices.get(random.nextInt(size[0]));
+                randomPairs[2 * i + 1] = vertices.get(random.nextInt(size[0]));
+            }
+            Vertex<Integer>[] adjacentPairs = pairs(QUERIES);
+            for (int i = 0; i < QUERIES; i++) {
+                Vertex<Integer>[] ends = edges.get(random.nextInt(edges.size())).vertices();
+                adjacentPairs[2 * i] = ends[0];
+                adjacentPairs[2 * i + 1] = ends[1];
+            }
+
+            /* scan, filter + scan, index, filter + index */
+            double[] randomTimes = new double[4];
+            double[] adjacentTimes = new double[4];
+            for (int config = 0; config < 4; config++) {
+                digraph.setAdjacencyIndex(config >= 2);
+                digraph.setAdjacencyFilter(config % 2 == 1);
+                randomTimes[config] = time(digraph, randomPairs);
+                adjacentTimes[config] = time(digraph, adjacentPairs);
+            }
+
+            System.out.printf("%9d %9d |%s |%s%n", size[0], size[1], row(randomTimes), row(adjacentTimes));
+        }
+    }
+
+    private static String columns() {
+        return String.format("%7s %9s %7s %9s", "scan", "flt+scan", "index", "flt+idx");
+    }
+
+    private static String row(double[] times) {
+        return String.format("%7.1f %9.1f %7.1f %9.1f", times[0], times[1], times[2], times[3]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Vertex<Integer>[] pairs(int count) {
+        return (Vertex<Integer>[]) new Vertex<?>[2 * count];
+    }
+
+    /* best of several rounds, in nanoseconds per query */
+    private static double time(DigraphImpl<Integer, Integer> digraph, Vertex<Integer>[] pairs) {
+        long best = Long.MAX_VALUE;
+        int found = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < pairs.length; i += 2) {
+                if (digraph.areAdjacent(pairs[i], pairs[i + 1])) found++;
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        /* keeps the queries from being optimized away */
+        if (found == -1) System.out.print("");
+        return (double) best / (pairs.length / 2);
+    }
+}
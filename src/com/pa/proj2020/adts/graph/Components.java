@@ -0,0 +1,273 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Partition of the vertices of a {@link DigraphSnapshot} into strongly or
+ * weakly connected components.
+ * <br>
+ * Two vertices are in the same strong component when each can reach the
+ * other along edges, and in the same weak component when they are joined by
+ * a path that ignores edge directions. Strong components are found by
+ * Tarjan's algorithm with an explicit stack instead of recursion, so long
+ * chains of vertices cannot overflow the call stack; weak components by
+ * union-find over the edges. Both run in time linear in the size of the
+ * digraph, over <code>int</code> arrays indexed by the vertex ids of the
+ * snapshot.
+ * <br>
+ * Components are numbered densely from <code>0</code> to
+ * <code>count() - 1</code>. Strong components are numbered in reverse
+ * topological order: an edge between two strong components always goes
+ * from a higher number to a lower one. Weak components are numbered by
+ * their lowest vertex id.
+ *
+ * @param <V> Type of element stored at a vertex
+ */
+public final class Components<V> {
+
+    private final DigraphSnapshot<V, ?> snapshot;
+    /* component of each vertex id of the snapshot */
+    private final int[] component;
+    private final int count;
+
+    private Components(DigraphSnapshot<V, ?> snapshot, int[] component, int count) {
+        this.snapshot = snapshot;
+        this.component = component;
+        this.count = count;
+    }
+
+    /**
+     * Finds the strongly connected components of the current state of a digraph
+     *
+     * @param digraph digraph, copied into a snapshot
+     *
+     * @return strong components
+     */
+    public static <V> Components<V> strong(Digraph<V, ?> digraph) {
+        return strong(DigraphSnapshot.of(digraph));
+    }
+
+    /**
+     * Finds the strongly connected components of a snapshot
+     *
+     * @param snapshot snapshot of a digraph
+     *
+     * @return strong components
+     */
+    public static <V> Components<V> strong(DigraphSnapshot<V, ?> snapshot) {
+        int n = snapshot.numVertices();
+        int[] component = new int[n];
+        /* discovery order of each vertex, -1 until discovered, and lowest order it reaches */
+        int[] order = new int[n];
+        int[] low = new int[n];
+        Arrays.fill(order, -1);
+        boolean[] onStack = new boolean[n];
+        /* vertices of components still open, and the depth-first path with the next edge of each vertex */
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] path = new int[n];
+        int[] nextEdge = new int[n];
+        int pathSize = 0;
+        int visited = 0;
+        int count = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (order[root] != -1) continue;
+            order[root] = low[root] = visited++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            path[pathSize] = root;
+            nextEdge[pathSize++] = snapshot.outStart(root);
+
+            while (pathSize > 0) {
+                int v = path[pathSize - 1];
+                int i = nextEdge[pathSize - 1];
+                if (i < snapshot.outEnd(v)) {
+                    nextEdge[pathSize - 1] = i + 1;
+                    int w = snapshot.outTarget(i);
+                    if (order[w] == -1) {
+                        order[w] = low[w] = visited++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        path[pathSize] = w;
+                        nextEdge[pathSize++] = snapshot.outStart(w);
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], order[w]);
+                    }
+                    continue;
+                }
+
+                /* all edges of v done: close its component if it is the root of one */
+                pathSize--;
+                if (low[v] == order[v]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        component[w] = count;
+                    } while (w != v);
+                    count++;
+                }
+                if (pathSize > 0) {
+                    int parent = path[pathSize - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+        return new Components<>(snapshot, component, count);
+    }
+
+    /**
+     * Finds the weakly connected components of the current state of a digraph
+     *
+     * @param digraph digraph, copied into a snapshot
+     *
+     * @return weak components
+     */
+    public static <V> Components<V> weak(Digraph<V, ?> digraph) {
+        return weak(DigraphSnapshot.of(digraph));
+    }
+
+    /**
+     * Finds the weakly connected components of a snapshot
+     *
+     * @param snapshot snapshot of a digraph
+     *
+     * @return weak components
+     */
+    public static <V> Components<V> weak(DigraphSnapshot<V, ?> snapshot) {
+        int n = snapshot.numVertices();
+        /* union-find forest, by size with path halving */
+        int[] parent = new int[n];
+        int[] size = new int[n];
+        for (int v = 0; v < n; v++) {
+            parent[v] = v;
+            size[v] = 1;
+        }
+        for (int v = 0; v < n; v++) {
+            for (int i = snapshot.outStart(v), end = snapshot.outEnd(v); i < end; i++) {
+                int a = find(parent, v);
+                int b = find(parent, snapshot.outTarget(i));
+                if (a == b) continue;
+                if (size[a] < size[b]) {
+                    int t = a;
+                    a = b;
+                    b = t;
+                }
+                parent[b] = a;
+                size[a] += size[b];
+            }
+        }
+
+        /* number the sets in order of their lowest vertex; size is no longer needed and holds the numbers */
+        int[] number = size;
+        Arrays.fill(number, -1);
+        int[] component = new int[n];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            int root = find(parent, v);
+            if (number[root] == -1) number[root] = count++;
+            component[v] = number[root];
+        }
+        return new Components<>(snapshot, component, count);
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    /**
+     * Returns the number of components
+     *
+     * @return number of components
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the component of a vertex
+     *
+     * @param v vertex
+     *
+     * @return component number, between 0 and count() - 1
+     *
+     * @exception InvalidVertexException if the vertex is not part of the snapshot
+     */
+    public int componentOf(Vertex<V> v) throws InvalidVertexException {
+        int id = snapshot.idOf(v);
+        if (id == -1) throw new InvalidVertexException("Vertex does not belong to this graph.");
+        return component[id];
+    }
+
+    /**
+     * Returns if two vertices are in the same component
+     *
+     * @param u first vertex
+     * @param v second vertex
+     *
+     * @return true if they are in the same component
+     *
+     * @exception InvalidVertexException if a vertex is not part of the snapshot
+     */
+    public boolean sameComponent(Vertex<V> u, Vertex<V> v) throws InvalidVertexException {
+        return componentOf(u) == componentOf(v);
+    }
+
+    /**
+     * Returns the component of every vertex, indexed by the vertex ids of the snapshot
+     *
+     * @return copy of the component numbers
+     */
+    public int[] componentIds() {
+        return Arrays.copyOf(component, component.length);
+    }
+
+    /**
+     * Returns the vertices of a component
+     *
+     * @param c component number
+     *
+     * @return vertices of the component, by vertex id
+     */
+    public List<Vertex<V>> members(int c) {
+        if (c < 0 || c >= count) throw new IndexOutOfBoundsException("No component " + c);
+        List<Vertex<V>> members = new ArrayList<>();
+        for (int v = 0; v < component.length; v++) {
+            if (component[v] == c) members.add(snapshot.vertex(v));
+        }
+        return members;
+    }
+
+    /**
+     * Returns the number of vertices of each component
+     *
+     * @return sizes, indexed by component number
+     */
+    public int[] sizes() {
+        int[] sizes = new int[count];
+        for (int c : component) sizes[c]++;
+        return sizes;
+    }
+
+    /**
+     * Returns how many components there are of each size
+     *
+     * @return histogram whose entry <code>s</code> is the number of components
+     *         of <code>s</code> vertices, up to the size of the largest one
+     */
+    public int[] sizeHistogram() {
+        int[] sizes = sizes();
+        int largest = 0;
+        for (int s : sizes) largest = Math.max(largest, s);
+        int[] histogram = new int[largest + 1];
+        for (int s : sizes) histogram[s]++;
+        return histogram;
+    }
+}
@@ -0,0 +1,477 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe {@link Digraph} implementation.
+ * <br>
+ * Vertices and adjacency are kept in concurrent hash maps, so lookups and
+ * iteration never block. Structural changes that touch two vertices (inserting
+ * or removing an edge) lock only those two vertices, always in the same order,
+ * so unrelated edges can be inserted from many threads in parallel. The locks
+ * are private to the digraph, so callers synchronizing on a vertex they were
+ * handed neither block nor deadlock its changes.
+ * <br>
+ * The collections returned by {@link #vertices()}, {@link #edges()},
+ * {@link #incidentEdges(Vertex)} and {@link #outboundEdges(Vertex)} are read-only
+ * live views with weakly consistent iterators: they never throw
+ * {@link java.util.ConcurrentModificationException} and reflect some, all or
+ * none of the changes made while iterating.
+ * <br>
+ * Vertex elements must not be <i>null</i>.
+ *
+ * @param <V> Type of element stored at a vertex
+ * @param <E> Type of element stored at an edge
+ */
+public class ConcurrentDigraph<V, E> implements Digraph<V, E> {
+
+    private final ConcurrentMap<V, MyVertex> vertices;
+    private final Set<Edge<E, V>> edges;
+
+    /* gives every vertex a distinct rank, used to order lock acquisition */
+    private final AtomicLong lockOrder;
+
+    /* guarded by their own monitors */
+    private final IdAllocator vertexIds;
+    private final IdAllocator edgeIds;
+
+    public ConcurrentDigraph() {
+        this.vertices = new ConcurrentHashMap<>();
+        this.edges = ConcurrentHashMap.newKeySet();
+        this.lockOrder = new AtomicLong();
+        this.vertexIds = new IdAllocator();
+        this.edgeIds = new IdAllocator();
+    }
+
+    @Override
+    public int numVertices() {
+        return vertices.size();
+    }
+
+    @Override
+    public int numEdges() {
+        return edges.size();
+    }
+
+    @Override
+    public int vertexIdCapacity() {
+        synchronized (vertexIds) {
+            return vertexIds.capacity();
+        }
+    }
+
+    @Override
+    public int edgeIdCapacity() {
+        synchronized (edgeIds) {
+            return edgeIds.capacity();
+        }
+    }
+
+    private int acquire(IdAllocator ids) {
+        synchronized (ids) {
+            return ids.acquire();
+        }
+    }
+
+    private void release(IdAllocator ids, int id) {
+        synchronized (ids) {
+            ids.release(id);
+        }
+    }
+
+    @Override
+    public Collection<Vertex<V>> vertices() {
+        return Collections.unmodifiableCollection(vertices.values());
+    }
+
+    @Override
+    public Collection<Edge<E, V>> edges() {
+        return Collections.unmodifiableCollection(edges);
+    }
+
+    @Override
+    public Collection<Edge<E, V>> incidentEdges(Vertex<V> inbound) throws InvalidVertexException {
+        return Collections.unmodifiableCollection(checkVertex(inbound).inbound.values());
+    }
+
+    @Override
+    public Collection<Edge<E, V>> outboundEdges(Vertex<V> outbound) throws InvalidVertexException {
+        return Collections.unmodifiableCollection(checkVertex(outbound).outbound.values());
+    }
+
+    @Override
+    public Vertex<V> opposite(Vertex<V> v, Edge<E, V> e) throws InvalidVertexException, InvalidEdgeException {
+        checkVertex(v);
+        MyEdge edge = checkEdge(e);
+
+        if (edge.vertexInbound == v) return edge.vertexOutbound;
+        if (edge.vertexOutbound == v) return edge.vertexInbound;
+        return null;
+    }
+
+    @Override
+    public boolean areAdjacent(Vertex<V> outbound, Vertex<V> inbound) throws InvalidVertexException {
+        MyVertex out = checkVertex(outbound);
+        MyVertex in = checkVertex(inbound);
+
+        return out.outbound.containsKey(in);
+    }
+
+    @Override
+    public Vertex<V> insertVertex(V vElement) throws InvalidVertexException {
+        if (vElement == null) throw new InvalidVertexException("Null element.");
+
+        if (vertices.containsKey(vElement)) {
+            throw new InvalidVertexException("There's already a vertex with this element.");
+        }
+
+        MyVertex newVertex = new MyVertex(vElement, lockOrder.getAndIncrement(), acquire(vertexIds));
+        if (vertices.putIfAbsent(vElement, newVertex) != null) {
+            release(vertexIds, newVertex.id);
+            throw new InvalidVertexException("There's already a vertex with this element.");
+        }
+        return newVertex;
+    }
+
+    @Override
+    public Edge<E, V> insertEdge(Vertex<V> outbound, Vertex<V> inbound, E edgeElement)
+            throws InvalidVertexException, InvalidEdgeException {
+        MyVertex outVertex = checkVertex(outbound);
+        MyVertex inVertex = checkVertex(inbound);
+
+        return link(outVertex, inVertex, edgeElement);
+    }
+
+    @Override
+    public Edge<E, V> insertEdge(V outboundElement, V inboundElement, E edgeElement)
+            throws InvalidVertexException, InvalidEdgeException {
+        MyVertex outVertex = outboundElement == null ? null : vertices.get(outboundElement);
+        if (outVertex == null) {
+            throw new InvalidVertexException("No vertex contains " + outboundElement);
+        }
+        MyVertex inVertex = inboundElement == null ? null : vertices.get(inboundElement);
+        if (inVertex == null) {
+            throw new InvalidVertexException("No vertex contains " + inboundElement);
+        }
+
+        return link(outVertex, inVertex, edgeElement);
+    }
+
+    @Override
+    public Optional<Vertex<V>> findVertex(V vElement) {
+        if (vElement == null) return Optional.empty();
+        return Optional.ofNullable(vertices.get(vElement));
+    }
+
+    @Override
+    public boolean containsVertex(V vElement) {
+        return vElement != null && vertices.containsKey(vElement);
+    }
+
+    @Override
+    public Optional<Edge<E, V>> findEdge(V outboundElement, V inboundElement) {
+        MyVertex outVertex = outboundElement == null ? null : vertices.get(outboundElement);
+        MyVertex inVertex = inboundElement == null ? null : vertices.get(inboundElement);
+        if (outVertex == null || inVertex == null) return Optional.empty();
+
+        return Optional.ofNullable(outVertex.outbound.get(inVertex));
+    }
+
+    @Override
+    public Optional<Vertex<V>> tryInsertVertex(V vElement) {
+        if (vElement == null || vertices.containsKey(vElement)) return Optional.empty();
+
+        MyVertex newVertex = new MyVertex(vElement, lockOrder.getAndIncrement(), acquire(vertexIds));
+        if (vertices.putIfAbsent(vElement, newVertex) != null) {
+            release(vertexIds, newVertex.id);
+            return Optional.empty();
+        }
+        return Optional.of(newVertex);
+    }
+
+    @Override
+    public Optional<Edge<E, V>> tryInsertEdge(V outboundElement, V inboundElement, E edgeElement) {
+        MyVertex outVertex = outboundElement == null ? null : vertices.get(outboundElement);
+        MyVertex inVertex = inboundElement == null ? null : vertices.get(inboundElement);
+        if (outVertex == null || inVertex == null) return Optional.empty();
+
+        return Optional.ofNullable(tryLink(outVertex, inVertex, edgeElement));
+    }
+
+    @Override
+    public V removeVertex(Vertex<V> v) throws InvalidVertexException {
+        MyVertex vertex = checkVertex(v);
+
+        /* once marked, no other thread can attach new edges to the vertex */
+        synchronized (vertex.lock) {
+            if (vertex.removed) throw new InvalidVertexException("Vertex does not belong to this graph.");
+            vertex.removed = true;
+        }
+        vertices.remove(vertex.element, vertex);
+
+        for (Edge<E, V> e : vertex.outbound.values()) {
+            unlink((MyEdge) e);
+        }
+        for (Edge<E, V> e : vertex.inbound.values()) {
+            unlink((MyEdge) e);
+        }
+        release(vertexIds, vertex.id);
+        return vertex.element;
+    }
+
+    @Override
+    public E removeEdge(Edge<E, V> e) throws InvalidEdgeException {
+        MyEdge edge = checkEdge(e);
+
+        if (!unlink(edge)) {
+            throw new InvalidEdgeException("Edge does not belong to this graph.");
+        }
+        return edge.element;
+    }
+
+    @Override
+    public V replace(Vertex<V> v, V newElement) throws InvalidVertexException {
+        if (newElement == null) throw new InvalidVertexException("Null element.");
+        MyVertex vertex = checkVertex(v);
+
+        synchronized (vertex.lock) {
+            if (vertex.removed) throw new InvalidVertexException("Vertex does not belong to this graph.");
+            if (vertices.putIfAbsent(newElement, vertex) != null) {
+                throw new InvalidVertexException("There's already a vertex with this element.");
+            }
+            V oldElement = vertex.element;
+            vertex.element = newElement;
+            vertices.remove(oldElement, vertex);
+            return oldElement;
+        }
+    }
+
+    @Override
+    public E replace(Edge<E, V> e, E newElement) throws InvalidEdgeException {
+        MyEdge edge = checkEdge(e);
+        for (Edge<E, V> other : edges) {
+            if (other != edge && other.element() == newElement) {
+                throw new InvalidEdgeException("There's already an edge with this element.");
+            }
+        }
+
+        E oldElement = edge.element;
+        edge.element = newElement;
+        return oldElement;
+    }
+
+    /**
+     * Creates an edge between two vertices
+     *
+     * @throws InvalidVertexException if one of the vertices was removed meanwhile
+     * @throws InvalidEdgeException if the vertices are already adjacent
+     */
+    private MyEdge link(MyVertex outVertex, MyVertex inVertex, E edgeElement) {
+        MyEdge newEdge = tryLink(outVertex, inVertex, edgeElement);
+        if (newEdge != null) return newEdge;
+
+        if (outVertex.removed || inVertex.removed) {
+            throw new InvalidVertexException("Vertex does not belong to this graph.");
+        }
+        throw new InvalidEdgeException("There's already an edge with this vertixes.");
+    }
+
+    /**
+     * Creates an edge between two vertices while holding the locks of both
+     *
+     * @return the new edge, or null if one of the vertices was removed meanwhile
+     *         or the vertices are already adjacent
+     */
+    private MyEdge tryLink(MyVertex outVertex, MyVertex inVertex, E edgeElement) {
+        MyVertex first = outVertex.order <= inVertex.order ? outVertex : inVertex;
+        MyVertex second = first == outVertex ? inVertex : outVertex;
+
+        synchronized (first.lock) {
+            synchronized (second.lock) {
+                if (outVertex.removed || inVertex.removed) return null;
+                if (outVertex.outbound.containsKey(inVertex)) return null;
+
+                MyEdge newEdge = new MyEdge(edgeElement, outVertex, inVertex, acquire(edgeIds));
+                outVertex.outbound.put(inVertex, newEdge);
+                inVertex.inbound.put(outVertex, newEdge);
+                edges.add(newEdge);
+                return newEdge;
+            }
+        }
+    }
+
+    /**
+     * Removes an edge while holding the locks of both of its vertices
+     *
+     * @return false if the edge had already been removed by another thread
+     */
+    private boolean unlink(MyEdge edge) {
+        MyVertex outVertex = edge.vertexOutbound;
+        MyVertex inVertex = edge.vertexInbound;
+        MyVertex first = outVertex.order <= inVertex.order ? outVertex : inVertex;
+        MyVertex second = first == outVertex ? inVertex : outVertex;
+
+        synchronized (first.lock) {
+            synchronized (second.lock) {
+                if (!edges.remove(edge)) return false;
+                outVertex.outbound.remove(inVertex, edge);
+                inVertex.inbound.remove(outVertex, edge);
+                release(edgeIds, edge.id);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(
+                String.format("Digraph with %d vertices and %d edges:\n", numVertices(), numEdges())
+        );
+
+        sb.append("--- Vertices: \n");
+        for (Vertex<V> v : vertices.values()) {
+            sb.append("\t").append(v.toString()).append("\n");
+        }
+        sb.append("\n--- Edges: \n");
+        for (Edge<E, V> e : edges) {
+            sb.append("\t").append(e.toString()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    class MyVertex implements Vertex<V> {
+
+        volatile V element;
+        volatile boolean removed;
+        final long order;
+        final int id;
+        /* outbound edges keyed by their inbound vertex, and vice-versa */
+        final ConcurrentMap<MyVertex, Edge<E, V>> outbound;
+        final ConcurrentMap<MyVertex, Edge<E, V>> inbound;
+        /* private monitor, since callers hold the vertex itself and may synchronize on it */
+        final Object lock = new Object();
+
+        public MyVertex(V element, long order, int id) {
+            this.element = element;
+            this.order = order;
+            this.id = id;
+            this.outbound = new ConcurrentHashMap<>();
+            this.inbound = new ConcurrentHashMap<>();
+        }
+
+        @Override
+        public V element() {
+            return this.element;
+        }
+
+        @Override
+        public int id() {
+            return this.id;
+        }
+
+        @Override
+        public String toString() {
+            return "Vertex{" + element + '}';
+        }
+    }
+
+    class MyEdge implements Edge<E, V> {
+
+        volatile E element;
+        final int id;
+        final MyVertex vertexOutbound;
+        final MyVertex vertexInbound;
+
+        public MyEdge(E element, MyVertex vertexOutbound, MyVertex vertexInbound, int id) {
+            this.element = element;
+            this.id = id;
+            this.vertexOutbound = vertexOutbound;
+            this.vertexInbound = vertexInbound;
+        }
+
+        @Override
+        public E element() {
+            return this.element;
+        }
+
+        @Override
+        public int id() {
+            return this.id;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Vertex<V>[] vertices() {
+            Vertex<V>[] vertices = (Vertex<V>[]) new Vertex<?>[2];
+            vertices[0] = vertexOutbound;
+            vertices[1] = vertexInbound;
+
+            return vertices;
+        }
+
+        @Override
+        public String toString() {
+            return "Edge{{" + element + "}, vertexOutbound=" + vertexOutbound.toString()
+                    + ", vertexInbound=" + vertexInbound.toString() + '}';
+        }
+    }
+
+    /**
+     * Checks whether a given vertex is valid and belongs to this graph
+     *
+     * @param v vertex to check
+     *
+     * @return the vertex
+     *
+     * @throws InvalidVertexException if the vertex is null, foreign or removed
+     */
+    @SuppressWarnings("unchecked")
+    private MyVertex checkVertex(Vertex<V> v) throws InvalidVertexException {
+        if (v == null) throw new InvalidVertexException("Null vertex.");
+
+        MyVertex vertex;
+        try {
+            vertex = (MyVertex) v;
+        } catch (ClassCastException e) {
+            throw new InvalidVertexException("Not a vertex.");
+        }
+
+        if (vertex.removed || vertices.get(vertex.element) != vertex) {
+            throw new InvalidVertexException("Vertex does not belong to this graph.");
+        }
+
+        return vertex;
+    }
+
+    /**
+     * Checks whether a given edge is valid and belongs to this graph
+     *
+     * @param e edge to check
+     *
+     * @return the edge
+     *
+     * @throws InvalidEdgeException if the edge is null, foreign or removed
+     */
+    private MyEdge checkEdge(Edge<E, V> e) throws InvalidEdgeException {
+        if (e == null) throw new InvalidEdgeException("Null edge.");
+
+        MyEdge edge;
+        try {
+            edge = (MyEdge) e;
+        } catch (ClassCastException ex) {
+            throw new InvalidEdgeException("Not an edge.");
+        }
+
+        if (!edges.contains(edge)) {
+            throw new InvalidEdgeException("Edge does not belong to this graph.");
+        }
+
+        return edge;
+    }
+}
@@ -0,0 +1,106 @@
+package com.pa.proj2020.adts.graph;
+
+/**
+ * Blocked counting Bloom filter over primitive <code>long</code> keys, which
+ * answers "definitely absent" or "maybe present" and supports removals.
+ * <br>
+ * Each key sets {@value #PROBES} 4-bit counters inside a single 64-byte block,
+ * so a query touches one cache line. With {@value #COUNTERS_PER_KEY} counters
+ * per key, about 1% of the absent keys are reported as maybe present.
+ * Counters that reach 15 saturate and are never decremented again, so
+ * removals never cause false negatives. The filter does not grow: once it holds more keys than it was
+ * sized for, its owner should rebuild it larger.
+ */
+final class CountingBloomFilter {
+
+    private static final int PROBES = 4;
+    private static final int COUNTERS_PER_KEY = 12;
+    /* 8 longs of 16 counters each */
+    private static final int LONGS_PER_BLOCK = 8;
+    private static final int COUNTERS_PER_BLOCK = LONGS_PER_BLOCK * 16;
+
+    private final long[] counters;
+    private final int blocks;
+    private final int capacity;
+    private int size;
+
+    CountingBloomFilter(int expectedSize) {
+        this.capacity = Math.max(64, expectedSize);
+        this.blocks = (int) (((long) capacity * COUNTERS_PER_KEY + COUNTERS_PER_BLOCK - 1) / COUNTERS_PER_BLOCK);
+        this.counters = new long[blocks * LONGS_PER_BLOCK];
+    }
+
+    private static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /* first long of the block of a hash, by multiply-shift range reduction of its high bits */
+    private int blockOf(long hash) {
+        return (int) (((hash >>> 32) * blocks) >>> 32) * LONGS_PER_BLOCK;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of keys the filter was sized for
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns if the filter holds more keys than it was sized for
+     */
+    boolean isFull() {
+        return size > capacity;
+    }
+
+    /**
+     * Returns false if <code>key</code> was definitely not added, or true if it may have been
+     */
+    boolean mightContain(long key) {
+        long h = hash(key);
+        int block = blockOf(h);
+        for (int i = 0; i < PROBES; i++, h >>>= 7) {
+            int counter = (int) h & (COUNTERS_PER_BLOCK - 1);
+            if ((counters[block + (counter >>> 4)] >>> ((counter & 15) << 2) & 0xf) == 0) return false;
+        }
+        return true;
+    }
+
+    void add(long key) {
+        long h = hash(key);
+        int block = blockOf(h);
+        for (int i = 0; i < PROBES; i++, h >>>= 7) {
+            int counter = (int) h & (COUNTERS_PER_BLOCK - 1);
+            int index = block + (counter >>> 4);
+            int shift = (counter & 15) << 2;
+            if ((counters[index] >>> shift & 0xf) != 0xf) counters[index] += 1L << shift;
+        }
+        size++;
+    }
+
+    /**
+     * Removes a key that was added before. Removing a key that was not added
+     * may cause false negatives.
+     */
+    void remove(long key) {
+        long h = hash(key);
+        int block = blockOf(h);
+        for (int i = 0; i < PROBES; i++, h >>>= 7) {
+            int counter = (int) h & (COUNTERS_PER_BLOCK - 1);
+            int index = block + (counter >>> 4);
+            int shift = (counter & 15) << 2;
+            long value = counters[index] >>> shift & 0xf;
+            if (value != 0xf && value != 0) counters[index] -= 1L << shift;
+        }
+        size--;
+    }
+}
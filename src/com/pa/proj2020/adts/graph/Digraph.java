@@ -23,7 +23,12 @@
  */
 package com.pa.proj2020.adts.graph;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * A directed graph (or digraph) is a graph that is made up of a set of vertices 
@@ -73,6 +78,39 @@ public interface Digraph<V, E> extends Graph<V, E> {
      */
     public Collection<Edge<E, V>> outboundEdges(Vertex<V> outbound)
             throws InvalidVertexException;
+
+    /**
+     * Performs the given action for each edge that has vertex <code>inbound</code>
+     * as the <i>inbound vertex</i>, without creating an intermediate collection.
+     * 
+     * The action must not modify the digraph.
+     * 
+     * @param inbound     vertex for which to visit the incident edges
+     * @param action      action to perform on each edge
+     * 
+     * @exception InvalidVertexException    if the vertex is invalid for the digraph
+     */
+    @Override
+    public default void forEachIncident(Vertex<V> inbound, Consumer<? super Edge<E, V>> action)
+            throws InvalidVertexException {
+        incidentEdges(inbound).forEach(action);
+    }
+
+    /**
+     * Performs the given action for each edge that has vertex <code>outbound</code>
+     * as the <i>outbound vertex</i>, without creating an intermediate collection.
+     * 
+     * The action must not modify the digraph.
+     * 
+     * @param outbound    vertex for which to visit the outbound edges
+     * @param action      action to perform on each edge
+     * 
+     * @exception InvalidVertexException    if the vertex is invalid for the digraph
+     */
+    public default void forEachOutbound(Vertex<V> outbound, Consumer<? super Edge<E, V>> action)
+            throws InvalidVertexException {
+        outboundEdges(outbound).forEach(action);
+    }
     
     
     /**
@@ -97,6 +135,53 @@ public interface Digraph<V, E> extends Graph<V, E> {
     public boolean areAdjacent(Vertex<V> outbound, Vertex<V> inbound)
             throws InvalidVertexException;
 
+    /**
+     * Returns the edge directed as <code>outbound --&gt; inbound</code> between
+     * the vertices that store the given elements, if there is one.
+     * 
+     * @param outboundElement  outbound vertex's stored element
+     * @param inboundElement   inbound vertex's stored element
+     * 
+     * @return              the edge, or an empty optional if either element is
+     *                      not in the digraph or the vertices are not adjacent
+     */
+    @Override
+    public default Optional<Edge<E, V>> findEdge(V outboundElement, V inboundElement) {
+        Optional<Vertex<V>> out = findVertex(outboundElement);
+        Optional<Vertex<V>> in = findVertex(inboundElement);
+        if (out.isEmpty() || in.isEmpty()) return Optional.empty();
+
+        for (Edge<E, V> e : outboundEdges(out.get())) {
+            if (e.vertices()[1] == in.get()) return Optional.of(e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Inserts a new edge <code>outbound --&gt; inbound</code> between the
+     * vertices that store the given elements, unless they are not in the
+     * digraph or are already adjacent.
+     * 
+     * @param outboundElement  outbound vertex's stored element
+     * @param inboundElement   inbound vertex's stored element
+     * @param edgeElement      element to store in the new edge
+     * 
+     * @return              the newly created edge, or an empty optional if the
+     *                      edge could not be inserted
+     */
+    @Override
+    public default Optional<Edge<E, V>> tryInsertEdge(V outboundElement, V inboundElement, E edgeElement) {
+        Optional<Vertex<V>> out = findVertex(outboundElement);
+        Optional<Vertex<V>> in = findVertex(inboundElement);
+        if (out.isEmpty() || in.isEmpty() || areAdjacent(out.get(), in.get())) return Optional.empty();
+
+        try {
+            return Optional.of(insertEdge(out.get(), in.get(), edgeElement));
+        } catch (InvalidEdgeException e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Inserts a new edge with a given element between two existing vertices and
      * return its (the edge's) reference.
@@ -149,6 +234,107 @@ public interface Digraph<V, E> extends Graph<V, E> {
     public Edge<E, V> insertEdge(V outboundElement, V inboundElement, E edgeElement)
             throws InvalidVertexException, InvalidEdgeException;;
 
+    /**
+     * Returns the weight of an edge.
+     * 
+     * Implementations without weighted edges give every edge the weight
+     * <code>1</code>.
+     * 
+     * @param e     edge
+     * 
+     * @return      the weight of the edge
+     * 
+     * @exception InvalidEdgeException    if the edge is invalid for the digraph
+     */
+    public default double weight(Edge<E, V> e) throws InvalidEdgeException {
+        return 1;
+    }
+
+    /**
+     * Changes the weight of an edge.
+     * 
+     * @param e         edge
+     * @param weight    new weight of the edge
+     * 
+     * @exception InvalidEdgeException             if the edge is invalid for the digraph
+     * @exception IllegalArgumentException         if the weight is NaN
+     * @exception UnsupportedOperationException    if the implementation does
+     *                                             not support weighted edges
+     */
+    public default void setWeight(Edge<E, V> e, double weight) throws InvalidEdgeException {
+        throw new UnsupportedOperationException("Edge weights are not supported.");
+    }
+
+    /**
+     * Returns the <code>k</code> outbound edges of a vertex with the highest
+     * weights, heaviest first. Edges with the same weight are listed in no
+     * particular order.
+     * 
+     * @param outbound    vertex for which to obtain the outbound edges
+     * @param k           maximum number of edges to return
+     * 
+     * @return            list of at most <code>k</code> edges
+     * 
+     * @exception InvalidVertexException      if the vertex is invalid for the digraph
+     * @exception IllegalArgumentException    if <code>k</code> is negative
+     */
+    public default List<Edge<E, V>> topOutbound(Vertex<V> outbound, int k) throws InvalidVertexException {
+        if (k < 0) throw new IllegalArgumentException("k must not be negative.");
+        List<Edge<E, V>> edges = new ArrayList<>(outboundEdges(outbound));
+        edges.sort(Comparator.comparingDouble((Edge<E, V> e) -> weight(e)).reversed());
+        return new ArrayList<>(edges.subList(0, Math.min(k, edges.size())));
+    }
+
+    /**
+     * Starts a transaction.
+     * 
+     * Every change made until {@link #commit()} or {@link #rollback()} is
+     * called belongs to the transaction and can be undone as a whole.
+     * Transactions cannot be nested.
+     * 
+     * @exception IllegalStateException            if a transaction is already open
+     * @exception UnsupportedOperationException    if the implementation does
+     *                                             not support transactions
+     */
+    public default void begin() {
+        throw new UnsupportedOperationException("Transactions are not supported.");
+    }
+
+    /**
+     * Ends the open transaction, keeping all of its changes.
+     * 
+     * @exception IllegalStateException            if there is no open transaction
+     * @exception UnsupportedOperationException    if the implementation does
+     *                                             not support transactions
+     */
+    public default void commit() {
+        throw new UnsupportedOperationException("Transactions are not supported.");
+    }
+
+    /**
+     * Ends the open transaction, undoing all of its changes.
+     * 
+     * Vertices and edges removed during the transaction are restored with
+     * the same references and ids they had before.
+     * 
+     * @exception IllegalStateException            if there is no open transaction
+     * @exception UnsupportedOperationException    if the implementation does
+     *                                             not support transactions
+     */
+    public default void rollback() {
+        throw new UnsupportedOperationException("Transactions are not supported.");
+    }
+
+    /**
+     * Evaluates whether a transaction is open.
+     * 
+     * @return      true if {@link #begin()} was called and the transaction
+     *              has not ended yet, false otherwise
+     */
+    public default boolean inTransaction() {
+        return false;
+    }
+
     
     
 }
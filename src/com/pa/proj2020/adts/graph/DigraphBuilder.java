@@ -0,0 +1,163 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Accumulates vertex elements and (outbound, inbound, element) edge triples
+ * so that they can be loaded into a {@link DigraphImpl} in a single pass.
+ * <br>
+ * Compared with calling {@link Digraph#insertVertex(Object)} and
+ * {@link Digraph#insertEdge(Object, Object, Object)} once per element, bulk
+ * loading sizes the digraph's tables up front, skips the per-call validation
+ * and silently drops duplicates instead of throwing: a vertex element already
+ * present, or a second edge between the same pair of vertices, is ignored
+ * (the first edge wins).
+ *
+ * @param <V> Type of element stored at a vertex
+ * @param <E> Type of element stored at an edge
+ *
+ * @see DigraphImpl#insertAll(DigraphBuilder)
+ */
+public class DigraphBuilder<V, E> {
+
+    private Object[] vertexElements;
+    private int numVertices;
+
+    private Object[] outbound;
+    private Object[] inbound;
+    private Object[] edgeElements;
+    private int numEdges;
+
+    public DigraphBuilder() {
+        this(16, 16);
+    }
+
+    /**
+     * Creates a builder sized for the expected number of vertices and edges
+     *
+     * @param expectedVertices expected number of vertices
+     * @param expectedEdges expected number of edges
+     */
+    public DigraphBuilder(int expectedVertices, int expectedEdges) {
+        this.vertexElements = new Object[Math.max(1, expectedVertices)];
+        this.outbound = new Object[Math.max(1, expectedEdges)];
+        this.inbound = new Object[outbound.length];
+        this.edgeElements = new Object[outbound.length];
+    }
+
+    /**
+     * Adds a vertex element
+     *
+     * @param vElement element to add
+     *
+     * @return this builder
+     */
+    public DigraphBuilder<V, E> addVertex(V vElement) {
+        if (numVertices == vertexElements.length) {
+            vertexElements = Arrays.copyOf(vertexElements, numVertices * 2);
+        }
+        vertexElements[numVertices++] = vElement;
+        return this;
+    }
+
+    /**
+     * Adds every vertex element of a collection
+     *
+     * @param vElements elements to add
+     *
+     * @return this builder
+     */
+    public DigraphBuilder<V, E> addVertices(Collection<? extends V> vElements) {
+        for (V vElement : vElements) {
+            addVertex(vElement);
+        }
+        return this;
+    }
+
+    /**
+     * Adds an edge triple. Both vertex elements must either be added to this
+     * builder or already exist in the digraph being loaded.
+     *
+     * @param outboundElement outbound vertex's element
+     * @param inboundElement inbound vertex's element
+     * @param edgeElement element to store in the edge
+     *
+     * @return this builder
+     */
+    public DigraphBuilder<V, E> addEdge(V outboundElement, V inboundElement, E edgeElement) {
+        if (numEdges == outbound.length) {
+            int capacity = numEdges * 2;
+            outbound = Arrays.copyOf(outbound, capacity);
+            inbound = Arrays.copyOf(inbound, capacity);
+            edgeElements = Arrays.copyOf(edgeElements, capacity);
+        }
+        outbound[numEdges] = outboundElement;
+        inbound[numEdges] = inboundElement;
+        edgeElements[numEdges++] = edgeElement;
+        return this;
+    }
+
+    /**
+     * Adds the edge triples <code>(outboundElements[i], inboundElements[i], edgeElements[i])</code>
+     *
+     * @param outboundElements outbound vertices' elements
+     * @param inboundElements inbound vertices' elements
+     * @param edgeElements elements to store in the edges
+     *
+     * @return this builder
+     *
+     * @exception IllegalArgumentException if the arrays have different lengths
+     */
+    public DigraphBuilder<V, E> addEdges(V[] outboundElements, V[] inboundElements, E[] edgeElements) {
+        if (outboundElements.length != inboundElements.length || inboundElements.length != edgeElements.length) {
+            throw new IllegalArgumentException("Edge arrays have different lengths.");
+        }
+        for (int i = 0; i < edgeElements.length; i++) {
+            addEdge(outboundElements[i], inboundElements[i], edgeElements[i]);
+        }
+        return this;
+    }
+
+    public int numVertices() {
+        return numVertices;
+    }
+
+    public int numEdges() {
+        return numEdges;
+    }
+
+    @SuppressWarnings("unchecked")
+    V vertexElement(int i) {
+        return (V) vertexElements[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    V outboundElement(int i) {
+        return (V) outbound[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    V inboundElement(int i) {
+        return (V) inbound[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    E edgeElement(int i) {
+        return (E) edgeElements[i];
+    }
+
+    /**
+     * Creates a new digraph, sized for the accumulated elements, and loads them
+     *
+     * @return the loaded digraph
+     *
+     * @exception InvalidVertexException if an edge refers to a vertex element
+     *                                   that was never added
+     */
+    public DigraphImpl<V, E> build() throws InvalidVertexException {
+        DigraphImpl<V, E> digraph = new DigraphImpl<>(numVertices, numEdges);
+        digraph.insertAll(this);
+        return digraph;
+    }
+}
@@ -1,15 +1,106 @@
 package com.pa.proj2020.adts.graph;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
 
 public class DigraphImpl<V, E> implements Digraph<V, E>  {
 
-    private final Map<V, Vertex<V>> vertices;
+    /* vertices indexed by id, null at ids that are not in use */
+    private MyVertex[] verticesById;
+    /* open-addressing table of the vertices keyed by element, null in empty slots */
+    private MyVertex[] elementIndex;
+    private int numVertices;
+    /* number of vertices inserted or removed so far, so that iterators of the vertex table fail fast */
+    private int vertexModCount;
+    /* edges indexed by id, null at ids that are not in use */
+    private MyEdge[] edges;
+    /* edge array of the vertices that have no edges in a direction, shared to save memory */
+    private final MyEdge[] noEdges = newEdgeArray(0);
+    private int numEdges;
+    /* number of edges linked or unlinked so far, so that iterators of the edge table fail fast */
+    private int edgeModCount;
+    /* optional id of the edge of every adjacent (outbound id, inbound id) pair, or null */
+    private LongIntHashMap adjacency;
+    /* optional negative fast path in front of the adjacency lookup, or null */
+    private CountingBloomFilter adjacencyFilter;
+
+    private final IdAllocator vertexIds;
+    private final IdAllocator edgeIds;
+
+    /* initial weight of new edges */
+    private final ToDoubleFunction<? super E> weigher;
+
+    /* read-only views handed out by vertices() and edges() */
+    private final Collection<Vertex<V>> verticesView;
+    private final Collection<Edge<E, V>> edgesView;
 
     private volatile boolean running;
 
+    /* changes of the open transaction, or null when there is none */
+    private List<Change> undoLog;
+
+    private final GraphEventSupport<V, E> events = new GraphEventSupport<>();
+
     public DigraphImpl() {
-        this.vertices = new HashMap<>();
+        this(0, 0);
+    }
+
+    /**
+     * Creates an empty digraph whose tables are sized for the expected number
+     * of vertices and edges
+     *
+     * @param expectedVertices expected number of vertices
+     * @param expectedEdges expected number of edges
+     */
+    public DigraphImpl(int expectedVertices, int expectedEdges) {
+        this(expectedVertices, expectedEdges, edgeElement -> 1);
+    }
+
+    /**
+     * Creates an empty digraph that weighs every new edge by its element
+     *
+     * @param weigher function that gives the initial weight of an edge from its element
+     */
+    public DigraphImpl(ToDoubleFunction<? super E> weigher) {
+        this(0, 0, weigher);
+    }
+
+    /**
+     * Creates an empty digraph whose tables are sized for the expected number
+     * of vertices and edges, and that weighs every new edge by its element
+     *
+     * @param expectedVertices expected number of vertices
+     * @param expectedEdges expected number of edges
+     * @param weigher function that gives the initial weight of an edge from its element
+     */
+    public DigraphImpl(int expectedVertices, int expectedEdges, ToDoubleFunction<? super E> weigher) {
+        this.weigher = Objects.requireNonNull(weigher);
+        this.elementIndex = newVertexArray(Integer.highestOneBit(Math.max(8, expectedVertices * 2) - 1) << 1);
+        this.verticesById = newVertexArray(Math.max(16, expectedVertices));
+        this.edges = newEdgeArray(Math.max(16, expectedEdges));
+        this.vertexIds = new IdAllocator();
+        this.edgeIds = new IdAllocator();
+        this.verticesView = new VertexTableView();
+        this.edgesView = new EdgeTableView();
+    }
+
+    @SuppressWarnings("unchecked")
+    private MyVertex[] newVertexArray(int length) {
+        return (MyVertex[]) new DigraphImpl.MyVertex[length];
+    }
+
+    @SuppressWarnings("unchecked")
+    private MyEdge[] newEdgeArray(int length) {
+        return (MyEdge[]) new DigraphImpl.MyEdge[length];
+    }
+
+    private static long pair(int out, int in) {
+        return ((long) out << 32) | (in & 0xffffffffL);
+    }
+
+    private static int tableCapacity(int expectedSize) {
+        return Math.max(16, (int) (expectedSize / 0.75f) + 1);
     }
 
     /**
@@ -19,7 +110,7 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
      */
     @Override
     public int numVertices() {
-        return this.vertices.size();
+        return this.numVertices;
     }
 
     /**
@@ -29,58 +120,78 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
      */
     @Override
     public int numEdges() {
-        return edges().size();
+        return this.numEdges;
+    }
+
+    /**
+     * Returns the upper bound of the vertex ids
+     *
+     * @return vertex id capacity
+     */
+    @Override
+    public int vertexIdCapacity() {
+        return vertexIds.capacity();
+    }
+
+    /**
+     * Returns the upper bound of the edge ids
+     *
+     * @return edge id capacity
+     */
+    @Override
+    public int edgeIdCapacity() {
+        return edgeIds.capacity();
     }
 
     /**
-     * Return a collection of all vertices inside the digraph
+     * Return a read-only live view of all vertices inside the digraph
      *
      * @return collection of vertices
      */
     @Override
     public Collection<Vertex<V>> vertices() {
-        return this.vertices.values();
+        return this.verticesView;
     }
 
     /**
-     * Return a collection of all edges inside the digraph
+     * Return a read-only live view of all edges inside the digraph
      *
      * @return collection of edges
      */
     @Override
     public Collection<Edge<E, V>> edges() {
-
-        List<Edge<E, V>> edges = new ArrayList<>();
-
-        for (Vertex<V> v : vertices.values()) {
-            MyVertex v2 = checkVertex(v);
-            for (Edge<E, V> e : v2.edges
-            ) {
-                if (edges.contains(e) == false) edges.add(e);
-            }
-        }
-        return edges;
+        return this.edgesView;
     }
 
     /**
-     * Returns a collection with all edges that are incident to the vertex given in parameters
+     * Returns a read-only live view of all edges that are incident to the vertex given in parameters
      *
      * @param inbound Inbound Vertex
      *
-     * @return list of edges
+     * @return collection of edges
      *
      * @exception InvalidVertexException if the vertex is not present in the digraph
      */
     @Override
+    @SuppressWarnings("unchecked")
     public Collection<Edge<E, V>> incidentEdges(Vertex<V> inbound) throws InvalidVertexException {
-        List<Edge<E, V>> edges = new ArrayList<>();
-        MyVertex v = checkVertex(inbound);
-        for (Edge<E, V> e : v.edges
-        ) {
-            MyEdge me = checkEdge(e);
-            if (me.vertexInbound == v) edges.add(e);
+        return new AdjacencyView(checkVertex(inbound), false);
+    }
+
+    /**
+     * Performs the action for each edge incident to the vertex given in parameters
+     *
+     * @param inbound Inbound Vertex
+     * @param action action to perform on each edge
+     *
+     * @exception InvalidVertexException if the vertex is not present in the digraph
+     */
+    @Override
+    public void forEachIncident(Vertex<V> inbound, Consumer<? super Edge<E, V>> action) throws InvalidVertexException {
+        MyVertex vertex = checkVertex(inbound);
+        for (int i = 0; i < vertex.inDegree; i++) {
+            action.accept(vertex.inbound[i]);
         }
-        return edges;
     }
 
     /**
@@ -96,40 +207,43 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
      */
     @Override
     public Vertex<V> opposite(Vertex<V> v, Edge<E, V> e) throws InvalidVertexException, InvalidEdgeException {
-        MyVertex mv = checkVertex(v);
-        Vertex rV = null;
-        for (Edge<E, V> e2 : mv.edges
-        ) {
-            if (e2 == e) {
-                MyEdge me = checkEdge(e2);
-                if (me.vertexInbound == v)
-                    rV = me.vertexOutbound;
-                else
-                    rV = me.vertexInbound;
-            }
-        }
-        return rV;
+        checkVertex(v);
+        MyEdge me = checkEdge(e);
+
+        if (me.vertexInbound == v) return me.vertexOutbound;
+        if (me.vertexOutbound == v) return me.vertexInbound;
+        return null;
     }
 
     /**
-     * Returns the outbound edges of the vertex given in parameter
+     * Returns a read-only live view of the outbound edges of the vertex given in parameter
      *
      * @param outbound Outbound Vertex
      *
-     * @return List of Edges
+     * @return collection of edges
      *
      * @exception InvalidVertexException if the vertex is not present in the digraph
      */
     @Override
+    @SuppressWarnings("unchecked")
     public Collection<Edge<E, V>> outboundEdges(Vertex<V> outbound) throws InvalidVertexException {
-        List<Edge<E, V>> edges = new ArrayList<>();
-        MyVertex v = checkVertex(outbound);
-        for (Edge<E, V> e : v.edges
-        ) {
-            MyEdge me = checkEdge(e);
-            if (me.vertexOutbound == v) edges.add(e);
+        return new AdjacencyView(checkVertex(outbound), true);
+    }
+
+    /**
+     * Performs the action for each outbound edge of the vertex given in parameter
+     *
+     * @param outbound Outbound Vertex
+     * @param action action to perform on each edge
+     *
+     * @exception InvalidVertexException if the vertex is not present in the digraph
+     */
+    @Override
+    public void forEachOutbound(Vertex<V> outbound, Consumer<? super Edge<E, V>> action) throws InvalidVertexException {
+        MyVertex vertex = checkVertex(outbound);
+        for (int i = 0; i < vertex.outDegree; i++) {
+            action.accept(vertex.outbound[i]);
         }
-        return edges;
     }
 
     /**
@@ -144,14 +258,58 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
      */
     @Override
     public boolean areAdjacent(Vertex<V> outbound, Vertex<V> inbound) throws InvalidVertexException {
-        MyVertex v = checkVertex(outbound);
+        MyVertex out = checkVertex(outbound);
+        MyVertex in = checkVertex(inbound);
 
-        for (Edge<E, V> e : v.edges
-        ) {
-            MyEdge me = checkEdge(e);
-            if (me.vertexInbound == inbound && me.vertexOutbound == outbound) return true;
+        return adjacentEdge(out, in) != null;
+    }
+
+    /**
+     * Turns on or off an index of the adjacent pairs, which makes
+     * {@link #areAdjacent(Vertex, Vertex)}, {@link #edgeBetween(Vertex, Vertex)}
+     * and the duplicate checks of edge insertion O(1) at 25 to 40 bytes per
+     * edge. Without it they scan the shorter of the outbound edges of one
+     * vertex and the inbound edges of the other. The index is off by default.
+     *
+     * @param enabled true to build the index, false to drop it
+     */
+    public void setAdjacencyIndex(boolean enabled) {
+        if (!enabled) {
+            adjacency = null;
+        } else if (adjacency == null) {
+            adjacency = new LongIntHashMap(numEdges);
+            for (MyEdge edge : edges) {
+                if (edge != null) adjacency.put(pair(edge.vertexOutbound.id, edge.vertexInbound.id), edge.id);
+            }
+        }
+    }
+
+    /**
+     * Turns on or off a counting Bloom filter of the adjacent pairs, kept in
+     * front of the adjacency lookup. It answers most queries about vertices
+     * that are not adjacent from one cache line, at 6 to 9 bytes per edge.
+     * <br>
+     * It is not a general speedup: it makes queries about adjacent vertices
+     * 1.3 to 1.6 times slower, and in front of the adjacency index it only
+     * pays off on graphs small enough to stay in cache. It is off by default;
+     * turn it on only when measurements of the actual workload favour it,
+     * see {@link AdjacencyBenchmark}.
+     *
+     * @param enabled true to build the filter, false to drop it
+     */
+    public void setAdjacencyFilter(boolean enabled) {
+        if (!enabled) {
+            adjacencyFilter = null;
+        } else if (adjacencyFilter == null) {
+            rebuildAdjacencyFilter(numEdges);
+        }
+    }
+
+    private void rebuildAdjacencyFilter(int expectedEdges) {
+        adjacencyFilter = new CountingBloomFilter(expectedEdges + expectedEdges / 2);
+        for (MyEdge edge : edges) {
+            if (edge != null) adjacencyFilter.add(pair(edge.vertexOutbound.id, edge.vertexInbound.id));
         }
-        return false;
     }
 
     /**
@@ -165,15 +323,11 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
      */
     @Override
     public Vertex<V> insertVertex(V vElement) throws InvalidVertexException {
-        if (vertices.containsKey(vElement) == true) {
+        if (vertexOf(vElement) != null) {
             throw new InvalidVertexException("There's already a vertex with this element.");
         }
 
-        MyVertex newVertex = new MyVertex(vElement);
-
-        vertices.put(vElement, newVertex);
-
-        return newVertex;
+        return addVertex(new MyVertex(vElement));
     }
 
     /**
@@ -198,10 +352,7 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
         MyVertex outVertex = checkVertex(outbound);
         MyVertex inVertex = checkVertex(inbound);
 
-        MyEdge newEdge1 = new MyEdge(edgeElement, outVertex, inVertex);
-        outVertex.edges.add(newEdge1);
-        inVertex.edges.add(newEdge1);
-        return newEdge1;
+        return link(new MyEdge(edgeElement, outVertex, inVertex));
     }
 
     /**
@@ -218,27 +369,271 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
      */
     @Override
     public Edge<E, V> insertEdge(V outboundElement, V inboundElement, E edgeElement) throws InvalidVertexException, InvalidEdgeException {
-        Vertex<V> outboundvertex = vertices.get(outboundElement);
-        Vertex<V> inboundvertex = vertices.get(inboundElement);
-
-        if (areAdjacent(outboundvertex, inboundvertex))
-            throw new InvalidVertexException("There's already an edge with this elements.");
-        if (!vertices.containsKey(outboundElement)) {
+        MyVertex outVertex = vertexOf(outboundElement);
+        if (outVertex == null) {
             throw new InvalidVertexException("No vertex contains " + outboundElement);
         }
-        if (!vertices.containsKey(inboundElement)) {
+        MyVertex inVertex = vertexOf(inboundElement);
+        if (inVertex == null) {
             throw new InvalidVertexException("No vertex contains " + inboundElement);
         }
 
+        if (adjacentEdge(outVertex, inVertex) != null)
+            throw new InvalidVertexException("There's already an edge with this elements.");
 
-        MyVertex outVertex = checkVertex(outboundvertex);
-        MyVertex inVertex = checkVertex(inboundvertex);
+        return link(new MyEdge(edgeElement, outVertex, inVertex));
+    }
 
-        MyEdge newEdge1 = new MyEdge(edgeElement, outboundvertex, inboundvertex);
-        outVertex.edges.add(newEdge1);
-        inVertex.edges.add(newEdge1);
+    /**
+     * Returns the vertex that stores the element given in parameter, in O(1).
+     * The lookup follows the elements given by {@link #replace(Vertex, Object)}.
+     *
+     * @param vElement element to look for
+     *
+     * @return the vertex, or null if no vertex contains the element
+     */
+    public MyVertex vertexOf(V vElement) {
+        return elementIndex[elementSlot(vElement)];
+    }
 
-        return newEdge1;
+    /**
+     * Returns the edge that leaves the outbound vertex towards the inbound vertex,
+     * in O(1) with the adjacency index and otherwise in O(min(out-degree, in-degree))
+     *
+     * @param outbound Outbound Vertex
+     * @param inbound Inbound Vertex
+     *
+     * @return the edge, or null if the vertices are not adjacent
+     *
+     * @exception InvalidVertexException if the vertex is not present in the digraph
+     */
+    public DigraphImpl.MyEdge edgeBetween(Vertex<V> outbound, Vertex<V> inbound) throws InvalidVertexException {
+        MyVertex outVertex = checkVertex(outbound);
+        MyVertex inVertex = checkVertex(inbound);
+
+        return adjacentEdge(outVertex, inVertex);
+    }
+
+    /**
+     * Returns the edge that leaves the outbound vertex towards the inbound vertex
+     *
+     * @return the edge, or null if the vertices are not adjacent
+     */
+    private MyEdge adjacentEdge(MyVertex outVertex, MyVertex inVertex) {
+        if (adjacencyFilter != null && !adjacencyFilter.mightContain(pair(outVertex.id, inVertex.id))) return null;
+        if (adjacency != null) {
+            int id = adjacency.get(pair(outVertex.id, inVertex.id), -1);
+            return id < 0 ? null : edges[id];
+        }
+
+        /* walks the shorter of the two edge arrays */
+        if (outVertex.outDegree <= inVertex.inDegree) {
+            for (int i = 0; i < outVertex.outDegree; i++) {
+                if (outVertex.outbound[i].vertexInbound == inVertex) return outVertex.outbound[i];
+            }
+        } else {
+            for (int i = 0; i < inVertex.inDegree; i++) {
+                if (inVertex.inbound[i].vertexOutbound == outVertex) return inVertex.inbound[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the vertex that stores the element given in parameter
+     *
+     * @param vElement element to look for
+     *
+     * @return the vertex, or an empty optional if no vertex contains the element
+     */
+    @Override
+    public Optional<Vertex<V>> findVertex(V vElement) {
+        return Optional.ofNullable(vertexOf(vElement));
+    }
+
+    /**
+     * Returns if there is a vertex that stores the element given in parameter
+     *
+     * @param vElement element to look for
+     *
+     * @return boolean
+     */
+    @Override
+    public boolean containsVertex(V vElement) {
+        return vertexOf(vElement) != null;
+    }
+
+    /**
+     * Returns the edge between the outbound and inbound elements given in parameters
+     *
+     * @param outboundElement outbound element
+     * @param inboundElement inbound element
+     *
+     * @return the edge, or an empty optional if there is none
+     */
+    @Override
+    public Optional<Edge<E, V>> findEdge(V outboundElement, V inboundElement) {
+        MyVertex outVertex = vertexOf(outboundElement);
+        MyVertex inVertex = vertexOf(inboundElement);
+        if (outVertex == null || inVertex == null) return Optional.empty();
+
+        return Optional.ofNullable(adjacentEdge(outVertex, inVertex));
+    }
+
+    /**
+     * Inserts a vertex in the digraph, unless the element is already present
+     *
+     * @param vElement Element to add
+     *
+     * @return The vertex that was added, or an empty optional
+     */
+    @Override
+    public Optional<Vertex<V>> tryInsertVertex(V vElement) {
+        if (vertexOf(vElement) != null) return Optional.empty();
+
+        return Optional.of(addVertex(new MyVertex(vElement)));
+    }
+
+    /**
+     * Inserts an edge between the outbound and inbound elements given in parameters,
+     * unless either element is missing or they are already adjacent
+     *
+     * @param outboundElement Element to add
+     * @param inboundElement Element to add
+     * @param edgeElement Element to add
+     *
+     * @return The edge that was added, or an empty optional
+     */
+    @Override
+    public Optional<Edge<E, V>> tryInsertEdge(V outboundElement, V inboundElement, E edgeElement) {
+        MyVertex outVertex = vertexOf(outboundElement);
+        MyVertex inVertex = vertexOf(inboundElement);
+        if (outVertex == null || inVertex == null || adjacentEdge(outVertex, inVertex) != null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(link(new MyEdge(edgeElement, outVertex, inVertex)));
+    }
+
+    /**
+     * Loads every vertex element and edge triple accumulated in a builder,
+     * in the order they were added to it.
+     * <br>
+     * Vertex elements already present and edges between vertices that are
+     * already adjacent are skipped. Every triple is validated and weighed
+     * before the digraph is touched, so either all elements are loaded or
+     * none is. If loading fails anyway, e.g., on an exception thrown by an
+     * element, the elements loaded so far are removed again and no event is
+     * published. The tables are grown once, up front, and the load is
+     * logged as a single entry of the transaction, not one per element.
+     *
+     * @param builder builder with the elements to load
+     *
+     * @exception InvalidVertexException if an edge refers to a vertex element
+     *                                   that is neither in the digraph nor in the builder
+     * @exception IllegalArgumentException if the weigher gives NaN for an edge element
+     */
+    public void insertAll(DigraphBuilder<V, E> builder) throws InvalidVertexException {
+        Set<V> newElements = new HashSet<>(tableCapacity(builder.numVertices()));
+        for (int i = 0; i < builder.numVertices(); i++) {
+            newElements.add(builder.vertexElement(i));
+        }
+        double[] weights = new double[builder.numEdges()];
+        for (int i = 0; i < builder.numEdges(); i++) {
+            V out = builder.outboundElement(i);
+            V in = builder.inboundElement(i);
+            if (vertexOf(out) == null && !newElements.contains(out)) {
+                throw new InvalidVertexException("No vertex contains " + out);
+            }
+            if (vertexOf(in) == null && !newElements.contains(in)) {
+                throw new InvalidVertexException("No vertex contains " + in);
+            }
+            weights[i] = checkWeight(weigher.applyAsDouble(builder.edgeElement(i)));
+        }
+        reserve(builder.numVertices(), builder.numEdges());
+
+        /* the load runs as a transaction of its own, or as part of the open one */
+        boolean transaction = undoLog == null;
+        if (transaction) begin();
+        List<Change> log = undoLog;
+        long vertexMark = vertexIds.mark();
+        long edgeMark = edgeIds.mark();
+        int eventMark = events.batchSize();
+        /* the loaded elements are logged as a whole below, by the ids they took */
+        undoLog = null;
+        boolean loaded = false;
+        try {
+            for (int i = 0; i < builder.numVertices(); i++) {
+                V vElement = builder.vertexElement(i);
+                if (vertexOf(vElement) == null) addVertex(new MyVertex(vElement));
+            }
+            for (int i = 0; i < builder.numEdges(); i++) {
+                MyVertex outVertex = vertexOf(builder.outboundElement(i));
+                MyVertex inVertex = vertexOf(builder.inboundElement(i));
+                if (adjacentEdge(outVertex, inVertex) == null) {
+                    link(new MyEdge(builder.edgeElement(i), outVertex, inVertex, weights[i]));
+                }
+            }
+            /* the vertices that got edges will rarely get many more */
+            edgeIds.acquiredSince(edgeMark).forEach(id -> {
+                edges[id].vertexOutbound.trim();
+                edges[id].vertexInbound.trim();
+            });
+            loaded = true;
+        } finally {
+            Change load = new Change(Change.INSERT_ALL, vertexIds.acquiredSince(vertexMark),
+                    edgeIds.acquiredSince(edgeMark));
+            if (!loaded) unload(load);
+            undoLog = log;
+            if (loaded) {
+                undoLog.add(load);
+                if (transaction) commit();
+            } else if (transaction) {
+                rollback();
+            } else {
+                events.truncateBatch(eventMark);
+            }
+        }
+    }
+
+    /**
+     * Grows the tables once for the given number of vertices and edges more
+     *
+     * @param moreVertices number of vertices that may be added
+     * @param moreEdges number of edges that may be added
+     */
+    private void reserve(int moreVertices, int moreEdges) {
+        int vertexCapacity = vertexIds.capacity() + moreVertices;
+        if (vertexCapacity > verticesById.length) verticesById = Arrays.copyOf(verticesById, vertexCapacity);
+        int edgeCapacity = edgeIds.capacity() + moreEdges;
+        if (edgeCapacity > edges.length) edges = Arrays.copyOf(edges, edgeCapacity);
+
+        int indexLength = elementIndex.length;
+        while (numVertices + moreVertices > indexLength / 2) indexLength *= 2;
+        if (indexLength > elementIndex.length) growElementIndex(indexLength);
+        if (adjacency != null) adjacency.ensureCapacity(numEdges + moreEdges);
+        if (adjacencyFilter != null && numEdges + moreEdges > adjacencyFilter.capacity()) {
+            rebuildAdjacencyFilter(numEdges + moreEdges);
+        }
+    }
+
+    /**
+     * Removes the vertices and edges of a load, releasing their ids
+     *
+     * @param load undo log entry of the load
+     */
+    private void unload(Change load) {
+        ((IdAllocator.Acquired) load.previous).forEach(id -> {
+            if (id < edges.length && edges[id] != null) {
+                unlink(edges[id]);
+            } else {
+                edgeIds.release(id);
+            }
+        });
+        ((IdAllocator.Acquired) load.target).forEach(id -> {
+            if (id < verticesById.length && verticesById[id] != null) unregister(verticesById[id]);
+            vertexIds.release(id);
+        });
     }
 
     /**
@@ -253,11 +648,17 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
     @Override
     public V removeVertex(Vertex<V> v) throws InvalidVertexException {
         MyVertex vertex = checkVertex(v);
-        for (Edge<E, V> e : vertex.edges
+        for (Edge<E, V> e : vertex.getEdges()
         ) {
-            removeEdge(e);
+            unlink((MyEdge) e);
+        }
+        unregister(vertex);
+        if (undoLog == null) {
+            vertexIds.release(vertex.id);
+        } else {
+            undoLog.add(new Change(Change.REMOVE_VERTEX, vertex, null));
         }
-        vertices.remove(vertex.element);
+        events.vertexRemoved(vertex);
         return vertex.element();
     }
 
@@ -273,10 +674,7 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
     @Override
     public E removeEdge(Edge<E, V> e) throws InvalidEdgeException {
         MyEdge edge = checkEdge(e);
-        MyVertex outboundVertex = checkVertex(edge.vertexOutbound);
-        MyVertex inboundVertex = checkVertex(edge.vertexInbound);
-        outboundVertex.edges.remove(e);
-        inboundVertex.edges.remove(e);
+        unlink(edge);
         return edge.element();
     }
 
@@ -288,17 +686,21 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
      *
      * @return old element
      *
-     * @exception InvalidVertexException if the vertex is already with the element given in parameter
+     * @exception InvalidVertexException if the vertex is not present in the digraph, or if
+     *                                   another vertex already holds the element given in parameter
      */
     @Override
     public V replace(Vertex<V> v, V newElement) throws InvalidVertexException {
-        if (!vertices.containsKey(newElement)) {
+        MyVertex newVertex = checkVertex(v);
+        MyVertex holder = vertexOf(newElement);
+        if (holder != null && holder != newVertex) {
             throw new InvalidVertexException("There's already a vertex with this element.");
         }
 
-        MyVertex newVertex = checkVertex(v);
         V oldElement = newVertex.element;
-        newVertex.element = newElement;
+        rekey(newVertex, newElement);
+        if (undoLog != null) undoLog.add(new Change(Change.REPLACE_VERTEX, newVertex, oldElement));
+        events.vertexReplaced(newVertex, oldElement);
 
         return oldElement;
     }
@@ -315,7 +717,7 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
      */
     @Override
     public E replace(Edge<E, V> e, E newElement) throws InvalidEdgeException {
-        for (Edge<E, V> edge : edges()
+        for (Edge<E, V> edge : this.edgesView
         ) {
             if (edge.element() == newElement) {
                 throw new InvalidEdgeException("There's already an edge with this element.");
@@ -325,18 +727,657 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
 
         E oldElement = changeEdge.element;
         changeEdge.element = newElement;
+        if (undoLog != null) undoLog.add(new Change(Change.REPLACE_EDGE, changeEdge, oldElement));
+        events.edgeReplaced(changeEdge, oldElement);
 
         return oldElement;
     }
 
+    /**
+     * Returns the weight of the edge given in parameter
+     *
+     * @param e Edge
+     *
+     * @return weight
+     *
+     * @exception InvalidEdgeException if the edge is not present in the digraph
+     */
+    @Override
+    public double weight(Edge<E, V> e) throws InvalidEdgeException {
+        return checkEdge(e).weight;
+    }
+
+    /**
+     * Changes the weight of the edge given in parameter, in O(log d) for an
+     * outbound vertex of degree d. Weight changes are not reported to listeners.
+     *
+     * @param e Edge
+     * @param weight new weight
+     *
+     * @exception InvalidEdgeException if the edge is not present in the digraph
+     * @exception IllegalArgumentException if the weight is NaN
+     */
+    @Override
+    public void setWeight(Edge<E, V> e, double weight) throws InvalidEdgeException {
+        MyEdge edge = checkEdge(e);
+        double oldWeight = edge.weight;
+        edge.vertexOutbound.reweigh(edge, checkWeight(weight));
+        if (undoLog != null) undoLog.add(new Change(Change.SET_WEIGHT, edge, oldWeight));
+    }
+
+    /**
+     * Returns the outbound edges of the vertex given in parameter with the
+     * highest weights, heaviest first, in O(k log k) without sorting the others
+     *
+     * @param outbound Outbound Vertex
+     * @param k maximum number of edges to return
+     *
+     * @return list of at most k edges
+     *
+     * @exception InvalidVertexException if the vertex is not present in the digraph
+     * @exception IllegalArgumentException if k is negative
+     */
+    @Override
+    public List<Edge<E, V>> topOutbound(Vertex<V> outbound, int k) throws InvalidVertexException {
+        if (k < 0) throw new IllegalArgumentException("k must not be negative.");
+        return checkVertex(outbound).heaviestOutbound(k);
+    }
+
+    private static double checkWeight(double weight) {
+        if (Double.isNaN(weight)) throw new IllegalArgumentException("The weight must be a number.");
+        return weight;
+    }
+
+    /**
+     * Registers a listener of the changes made to the digraph. The changes
+     * made inside a transaction or by {@link #insertAll(DigraphBuilder)} are
+     * delivered in a single call; those of a transaction only if it commits.
+     *
+     * @param listener listener to register
+     */
+    @Override
+    public void addGraphListener(GraphListener<V, E> listener) {
+        events.addListener(listener);
+    }
+
+    /**
+     * Unregisters a listener of the changes made to the digraph
+     *
+     * @param listener listener to unregister
+     */
+    @Override
+    public void removeGraphListener(GraphListener<V, E> listener) {
+        events.removeListener(listener);
+    }
+
+    /**
+     * Starts a transaction. Until it ends, ids of removed vertices and edges
+     * are not reused, so that a rollback can restore them.
+     *
+     * @exception IllegalStateException if a transaction is already open
+     */
+    @Override
+    public void begin() {
+        if (undoLog != null) throw new IllegalStateException("A transaction is already open.");
+        undoLog = new ArrayList<>();
+        events.beginBatch();
+    }
+
+    /**
+     * Ends the open transaction keeping its changes, in O(changes)
+     *
+     * @exception IllegalStateException if there is no open transaction
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void commit() {
+        if (undoLog == null) throw new IllegalStateException("There is no open transaction.");
+        List<Change> log = undoLog;
+        undoLog = null;
+
+        for (Change change : log) {
+            if (change.type == Change.REMOVE_VERTEX) vertexIds.release(((MyVertex) change.target).id);
+            if (change.type == Change.REMOVE_EDGE) edgeIds.release(((MyEdge) change.target).id);
+        }
+        events.endBatch();
+    }
+
+    /**
+     * Ends the open transaction undoing its changes, in O(changes)
+     *
+     * @exception IllegalStateException if there is no open transaction
+     */
+    @Override
+    public void rollback() {
+        if (undoLog == null) throw new IllegalStateException("There is no open transaction.");
+        undoSince(0);
+        undoLog = null;
+        /* listeners never saw the changes of the transaction, nor their undoing */
+        events.discardBatch();
+    }
+
+    /**
+     * Undoes the changes logged from a position of the undo log on, and
+     * removes them from the log. The open transaction stays open.
+     *
+     * @param mark size of the undo log before the changes to undo
+     */
+    @SuppressWarnings("unchecked")
+    private void undoSince(int mark) {
+        List<Change> log = undoLog;
+        /* the undoing itself is not logged */
+        undoLog = null;
+
+        for (int i = log.size() - 1; i >= mark; i--) {
+            Change change = log.get(i);
+            switch (change.type) {
+                case Change.INSERT_VERTEX:
+                    MyVertex inserted = (MyVertex) change.target;
+                    unregister(inserted);
+                    vertexIds.release(inserted.id);
+                    break;
+                case Change.REMOVE_VERTEX:
+                    MyVertex removed = (MyVertex) change.target;
+                    register(removed);
+                    break;
+                case Change.INSERT_EDGE:
+                    unlink((MyEdge) change.target);
+                    break;
+                case Change.INSERT_ALL:
+                    unload(change);
+                    break;
+                case Change.REMOVE_EDGE:
+                    link((MyEdge) change.target);
+                    break;
+                case Change.REPLACE_VERTEX:
+                    rekey((MyVertex) change.target, (V) change.previous);
+                    break;
+                case Change.REPLACE_EDGE:
+                    ((MyEdge) change.target).element = (E) change.previous;
+                    break;
+                case Change.SET_WEIGHT:
+                    MyEdge reweighed = (MyEdge) change.target;
+                    reweighed.vertexOutbound.reweigh(reweighed, (Double) change.previous);
+                    break;
+            }
+        }
+        log.subList(mark, log.size()).clear();
+        undoLog = log;
+    }
+
+    /**
+     * Returns if there is an open transaction
+     *
+     * @return boolean
+     */
+    @Override
+    public boolean inTransaction() {
+        return undoLog != null;
+    }
+
+    /**
+     * Registers a new vertex
+     *
+     * @param vertex vertex to register
+     *
+     * @return the registered vertex
+     */
+    private MyVertex addVertex(MyVertex vertex) {
+        register(vertex);
+        if (undoLog != null) undoLog.add(new Change(Change.INSERT_VERTEX, vertex, null));
+        events.vertexAdded(vertex);
+        return vertex;
+    }
+
+    /**
+     * Puts a vertex in the vertex table and in the element index
+     *
+     * @param vertex vertex to put
+     */
+    private void register(MyVertex vertex) {
+        if (vertex.id >= verticesById.length) {
+            verticesById = Arrays.copyOf(verticesById, Math.max(verticesById.length * 2, vertex.id + 1));
+        }
+        verticesById[vertex.id] = vertex;
+        vertex.hash = spread(vertex.element);
+        elementIndex[elementSlot(vertex.element)] = vertex;
+        vertexModCount++;
+        if (++numVertices > elementIndex.length / 2) growElementIndex(elementIndex.length * 2);
+    }
+
+    private void growElementIndex(int length) {
+        MyVertex[] old = elementIndex;
+        elementIndex = newVertexArray(length);
+        int mask = length - 1;
+        for (MyVertex indexed : old) {
+            if (indexed == null) continue;
+            int i = indexed.hash & mask;
+            while (elementIndex[i] != null) i = (i + 1) & mask;
+            elementIndex[i] = indexed;
+        }
+    }
+
+    /**
+     * Takes a vertex out of the vertex table and of the element index. The id
+     * stays reserved until it is released.
+     *
+     * @param vertex vertex to take out
+     */
+    private void unregister(MyVertex vertex) {
+        int mask = elementIndex.length - 1;
+        int hole = elementSlot(vertex.element);
+
+        /* shift back the following entries of the probe sequence into the hole */
+        for (int j = (hole + 1) & mask; elementIndex[j] != null; j = (j + 1) & mask) {
+            int home = elementIndex[j].hash & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                elementIndex[hole] = elementIndex[j];
+                hole = j;
+            }
+        }
+        elementIndex[hole] = null;
+        verticesById[vertex.id] = null;
+        vertexModCount++;
+        numVertices--;
+    }
+
+    /**
+     * Changes the element of a vertex, moving it in the element index
+     *
+     * @param vertex vertex to change
+     * @param element new element
+     */
+    private void rekey(MyVertex vertex, V element) {
+        unregister(vertex);
+        vertex.element = element;
+        register(vertex);
+    }
+
+    /**
+     * Returns the slot of the element index that holds the given element,
+     * or the empty slot where it would go
+     */
+    private int elementSlot(Object element) {
+        int hash = spread(element);
+        int mask = elementIndex.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            MyVertex vertex = elementIndex[i];
+            if (vertex == null || vertex.hash == hash && Objects.equals(vertex.element, element)) return i;
+        }
+    }
+
+    private static int spread(Object element) {
+        int hash = Objects.hashCode(element) * 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Registers an edge in the edge table, in the adjacency index and filter
+     * if there are, and in the edge arrays of both of its vertices
+     *
+     * @param edge edge to register
+     *
+     * @return the registered edge
+     */
+    private MyEdge link(MyEdge edge) {
+        edge.vertexOutbound.addOutbound(edge);
+        edge.vertexInbound.addInbound(edge);
+        if (edge.id >= edges.length) {
+            edges = Arrays.copyOf(edges, Math.max(edges.length * 2, edge.id + 1));
+        }
+        edges[edge.id] = edge;
+        numEdges++;
+        edgeModCount++;
+        long key = pair(edge.vertexOutbound.id, edge.vertexInbound.id);
+        if (adjacency != null) adjacency.put(key, edge.id);
+        if (adjacencyFilter != null) {
+            adjacencyFilter.add(key);
+            if (adjacencyFilter.isFull()) rebuildAdjacencyFilter(numEdges);
+        }
+        if (undoLog != null) undoLog.add(new Change(Change.INSERT_EDGE, edge, null));
+        events.edgeAdded(edge);
+        return edge;
+    }
+
+    /**
+     * Removes an edge from the edge table, from the adjacency index and filter
+     * if there are, and from the edge arrays of both of its vertices. The id stays reserved until it
+     * is released, so a rollback can put the edge back in the same slot.
+     *
+     * @param edge edge to remove
+     */
+    private void unlink(MyEdge edge) {
+        edge.vertexOutbound.removeOutbound(edge);
+        edge.vertexInbound.removeInbound(edge);
+        edges[edge.id] = null;
+        numEdges--;
+        edgeModCount++;
+        long key = pair(edge.vertexOutbound.id, edge.vertexInbound.id);
+        if (adjacency != null) adjacency.remove(key);
+        if (adjacencyFilter != null) adjacencyFilter.remove(key);
+        if (undoLog == null) {
+            edgeIds.release(edge.id);
+        } else {
+            undoLog.add(new Change(Change.REMOVE_EDGE, edge, null));
+        }
+        events.edgeRemoved(edge);
+    }
+
+    /**
+     * Entry of the undo log: what was done to which vertex or edge, and the
+     * element or weight it held before in the case of a replacement. A bulk
+     * load keeps the vertex ids it took as target and the edge ids as previous.
+     */
+    private static final class Change {
+
+        static final int INSERT_VERTEX = 0, REMOVE_VERTEX = 1, INSERT_EDGE = 2, REMOVE_EDGE = 3,
+                REPLACE_VERTEX = 4, REPLACE_EDGE = 5, SET_WEIGHT = 6, INSERT_ALL = 7;
+
+        final int type;
+        final Object target;
+        final Object previous;
+
+        Change(int type, Object target, Object previous) {
+            this.type = type;
+            this.target = target;
+            this.previous = previous;
+        }
+    }
+
+    /**
+     * Read-only live view of the vertex table. Its iterators throw
+     * {@link ConcurrentModificationException} once a vertex is inserted or removed.
+     */
+    private final class VertexTableView extends AbstractCollection<Vertex<V>> {
+
+        @Override
+        public int size() {
+            return numVertices;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof DigraphImpl.MyVertex)) return false;
+            int id = ((DigraphImpl.MyVertex) o).id;
+            return id < verticesById.length && verticesById[id] == o;
+        }
+
+        @Override
+        public Iterator<Vertex<V>> iterator() {
+            return new Iterator<>() {
+                private int next = skip(0);
+                private final int expectedModCount = vertexModCount;
+
+                private int skip(int i) {
+                    while (i < verticesById.length && verticesById[i] == null) i++;
+                    return i;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < verticesById.length;
+                }
+
+                @Override
+                public Vertex<V> next() {
+                    if (vertexModCount != expectedModCount) throw new ConcurrentModificationException();
+                    if (!hasNext()) throw new NoSuchElementException();
+                    MyVertex vertex = verticesById[next];
+                    next = skip(next + 1);
+                    return vertex;
+                }
+            };
+        }
+    }
+
+    /**
+     * Read-only live view of the edge table. Its iterators throw
+     * {@link ConcurrentModificationException} once an edge is inserted or removed.
+     */
+    private final class EdgeTableView extends AbstractCollection<Edge<E, V>> {
+
+        @Override
+        public int size() {
+            return numEdges;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof DigraphImpl.MyEdge)) return false;
+            int id = ((DigraphImpl.MyEdge) o).id;
+            return id < edges.length && edges[id] == o;
+        }
+
+        @Override
+        public Iterator<Edge<E, V>> iterator() {
+            return new Iterator<>() {
+                private int next = skip(0);
+                private final int expectedModCount = edgeModCount;
+
+                private int skip(int i) {
+                    while (i < edges.length && edges[i] == null) i++;
+                    return i;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < edges.length;
+                }
+
+                @Override
+                public Edge<E, V> next() {
+                    if (edgeModCount != expectedModCount) throw new ConcurrentModificationException();
+                    if (!hasNext()) throw new NoSuchElementException();
+                    MyEdge edge = edges[next];
+                    next = skip(next + 1);
+                    return edge;
+                }
+            };
+        }
+    }
+
+    /**
+     * Read-only live view of the outbound or inbound edges of a vertex. Its
+     * iterators throw {@link ConcurrentModificationException} once an edge of
+     * the vertex is inserted, removed or reweighed.
+     */
+    private final class AdjacencyView extends AbstractCollection<Edge<E, V>> {
+
+        private final MyVertex vertex;
+        private final boolean outbound;
+
+        AdjacencyView(MyVertex vertex, boolean outbound) {
+            this.vertex = vertex;
+            this.outbound = outbound;
+        }
+
+        @Override
+        public int size() {
+            return outbound ? vertex.outDegree : vertex.inDegree;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof DigraphImpl.MyEdge)) return false;
+            DigraphImpl.MyEdge edge = (DigraphImpl.MyEdge) o;
+            if (outbound) {
+                return edge.outPosition < vertex.outDegree && vertex.outbound[edge.outPosition] == edge;
+            }
+            return edge.inPosition < vertex.inDegree && vertex.inbound[edge.inPosition] == edge;
+        }
+
+        @Override
+        public Iterator<Edge<E, V>> iterator() {
+            return new Iterator<>() {
+                private int next;
+                private final int expectedModCount = vertex.modCount;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size();
+                }
+
+                @Override
+                public Edge<E, V> next() {
+                    if (vertex.modCount != expectedModCount) throw new ConcurrentModificationException();
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return outbound ? vertex.outbound[next++] : vertex.inbound[next++];
+                }
+            };
+        }
+    }
+
     class MyVertex implements Vertex<V> {
 
         V element;
-        protected List<Edge<E, V>> edges;
+        final int id;
+        /*
+         * edges packed at the front of each array; every edge knows its position.
+         * The outbound array is a binary max-heap on the edge weights.
+         */
+        MyEdge[] outbound;
+        int outDegree;
+        MyEdge[] inbound;
+        int inDegree;
+        /* spread hash of the element, kept for the element index */
+        int hash;
+        /* number of changes to the order of either array, so that iterators of the views fail fast */
+        int modCount;
 
         public MyVertex(V element) {
             this.element = element;
-            edges = new LinkedList<>();
+            this.id = vertexIds.acquire();
+            this.outbound = noEdges;
+            this.inbound = noEdges;
+        }
+
+        void addOutbound(MyEdge edge) {
+            if (outDegree == outbound.length) outbound = Arrays.copyOf(outbound, Math.max(2, outDegree * 2));
+            modCount++;
+            place(edge, outDegree++);
+            siftUp(edge.outPosition);
+        }
+
+        /* drops the room left by doubling */
+        void trim() {
+            if (outbound.length > outDegree) outbound = outDegree == 0 ? noEdges : Arrays.copyOf(outbound, outDegree);
+            if (inbound.length > inDegree) inbound = inDegree == 0 ? noEdges : Arrays.copyOf(inbound, inDegree);
+        }
+
+        void addInbound(MyEdge edge) {
+            if (inDegree == inbound.length) inbound = Arrays.copyOf(inbound, Math.max(2, inDegree * 2));
+            modCount++;
+            edge.inPosition = inDegree;
+            inbound[inDegree++] = edge;
+        }
+
+        /* moves the last edge into the freed position */
+        void removeOutbound(MyEdge edge) {
+            modCount++;
+            MyEdge last = outbound[--outDegree];
+            outbound[outDegree] = null;
+            if (last != edge) {
+                place(last, edge.outPosition);
+                siftDown(last.outPosition);
+                siftUp(last.outPosition);
+            }
+        }
+
+        void reweigh(MyEdge edge, double weight) {
+            modCount++;
+            edge.weight = weight;
+            siftDown(edge.outPosition);
+            siftUp(edge.outPosition);
+        }
+
+        private void place(MyEdge edge, int position) {
+            outbound[position] = edge;
+            edge.outPosition = position;
+        }
+
+        private void siftUp(int position) {
+            MyEdge edge = outbound[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (outbound[parent].weight >= edge.weight) break;
+                place(outbound[parent], position);
+                position = parent;
+            }
+            place(edge, position);
+        }
+
+        private void siftDown(int position) {
+            MyEdge edge = outbound[position];
+            int half = outDegree >>> 1;
+            while (position < half) {
+                int child = 2 * position + 1;
+                if (child + 1 < outDegree && outbound[child + 1].weight > outbound[child].weight) child++;
+                if (edge.weight >= outbound[child].weight) break;
+                place(outbound[child], position);
+                position = child;
+            }
+            place(edge, position);
+        }
+
+        /**
+         * Returns the k heaviest outbound edges, heaviest first. Walks the heap
+         * from the root, keeping the children of the edges already taken in a
+         * second heap of positions.
+         *
+         * @param k maximum number of edges to return
+         *
+         * @return list of edges
+         */
+        List<Edge<E, V>> heaviestOutbound(int k) {
+            int n = Math.min(k, outDegree);
+            List<Edge<E, V>> top = new ArrayList<>(n);
+            if (n == 0) return top;
+
+            int[] frontier = new int[n + 1];
+            int size = 1;
+            while (top.size() < n) {
+                int position = frontier[0];
+                top.add(outbound[position]);
+                frontier[0] = frontier[--size];
+                if (size > 0) siftDownFrontier(frontier, size);
+                for (int child = 2 * position + 1; child <= 2 * position + 2 && child < outDegree; child++) {
+                    frontier[size] = child;
+                    siftUpFrontier(frontier, size++);
+                }
+            }
+            return top;
+        }
+
+        private void siftDownFrontier(int[] frontier, int size) {
+            int i = 0;
+            int position = frontier[0];
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && outbound[frontier[child + 1]].weight > outbound[frontier[child]].weight) child++;
+                if (outbound[position].weight >= outbound[frontier[child]].weight) break;
+                frontier[i] = frontier[child];
+                i = child;
+            }
+            frontier[i] = position;
+        }
+
+        private void siftUpFrontier(int[] frontier, int i) {
+            int position = frontier[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (outbound[frontier[parent]].weight >= outbound[position].weight) break;
+                frontier[i] = frontier[parent];
+                i = parent;
+            }
+            frontier[i] = position;
+        }
+
+        void removeInbound(MyEdge edge) {
+            modCount++;
+            MyEdge last = inbound[--inDegree];
+            inbound[edge.inPosition] = last;
+            last.inPosition = edge.inPosition;
+            inbound[inDegree] = null;
         }
 
         @Override
@@ -344,6 +1385,11 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
             return this.element;
         }
 
+        @Override
+        public int id() {
+            return this.id;
+        }
+
         @Override
         public String toString() {
             return "Vertex{" + element + '}';
@@ -353,7 +1399,20 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
             return element;
         }
 
+        /**
+         * Returns every edge connected to this vertex, outbound edges first
+         *
+         * @return list of edges
+         */
         public List<Edge<E, V>> getEdges() {
+            List<Edge<E, V>> edges = new ArrayList<>(outDegree + inDegree);
+            for (int i = 0; i < outDegree; i++) {
+                edges.add(outbound[i]);
+            }
+            for (int i = 0; i < inDegree; i++) {
+                /* loops are already listed as outbound edges */
+                if (inbound[i].vertexOutbound != this) edges.add(inbound[i]);
+            }
             return edges;
         }
     }
@@ -361,11 +1420,22 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
     class MyEdge implements Edge<E, V> {
 
         E element;
-        Vertex<V> vertexOutbound;
-        Vertex<V> vertexInbound;
+        final int id;
+        MyVertex vertexOutbound;
+        MyVertex vertexInbound;
+        double weight;
+        /* positions in the outbound array of vertexOutbound and the inbound array of vertexInbound */
+        int outPosition;
+        int inPosition;
+
+        public MyEdge(E element, MyVertex vertexOutbound, MyVertex vertexInbound) {
+            this(element, vertexOutbound, vertexInbound, checkWeight(weigher.applyAsDouble(element)));
+        }
 
-        public MyEdge(E element, Vertex<V> vertexOutbound, Vertex<V> vertexInbound) {
+        MyEdge(E element, MyVertex vertexOutbound, MyVertex vertexInbound, double weight) {
             this.element = element;
+            this.weight = weight;
+            this.id = edgeIds.acquire();
             this.vertexOutbound = vertexOutbound;
             this.vertexInbound = vertexInbound;
         }
@@ -375,6 +1445,11 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
             return this.element;
         }
 
+        @Override
+        public int id() {
+            return this.id;
+        }
+
         public boolean contains(Vertex<V> v) {
             return (vertexOutbound == v || vertexInbound == v);
         }
@@ -413,7 +1488,7 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
             throw new InvalidVertexException("Not a vertex.");
         }
 
-        if (!vertices.containsKey(vertex.element)) {
+        if (vertex.id >= verticesById.length || verticesById[vertex.id] != vertex) {
             throw new InvalidVertexException("Vertex does not belong to this graph.");
         }
 
@@ -438,8 +1513,7 @@ public class DigraphImpl<V, E> implements Digraph<V, E>  {
         } catch (ClassCastException ex) {
             throw new InvalidVertexException("Not an edge.");
         }
-        Collection<Edge<E, V>> edges = edges();
-        if (!edges.contains(edge)) {
+        if (edge.id >= edges.length || edges[edge.id] != edge) {
             throw new InvalidEdgeException("Edge does not belong to this graph.");
         }
 
@@ -0,0 +1,266 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable compressed-sparse-row (CSR) copy of the topology of a {@link Digraph}.
+ * <br>
+ * Vertices are numbered densely from <code>0</code> to <code>numVertices() - 1</code>
+ * and edges from <code>0</code> to <code>numEdges() - 1</code>. The outbound edges of
+ * vertex <code>v</code> are the positions <code>outStart(v) .. outEnd(v) - 1</code>
+ * and the inbound ones <code>inStart(v) .. inEnd(v) - 1</code>, so read-heavy
+ * algorithms can scan the whole graph with plain int loops:
+ * <pre>
+ * for (int i = s.outStart(v); i &lt; s.outEnd(v); i++) {
+ *     int w = s.outTarget(i);
+ * }
+ * </pre>
+ * Later changes to the source digraph are not reflected in the snapshot.
+ *
+ * @param <V> Type of element stored at a vertex
+ * @param <E> Type of element stored at an edge
+ */
+public final class DigraphSnapshot<V, E> {
+
+    private final Vertex<V>[] vertices;
+    /* dense id of each vertex by its graph id, or -1 */
+    private final int[] index;
+
+    /* outbound adjacency; position i is also the edge number */
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final Edge<E, V>[] edges;
+
+    /* inbound adjacency; inEdges holds the edge number of each position */
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inEdges;
+
+    @SuppressWarnings("unchecked")
+    private DigraphSnapshot(Digraph<V, E> digraph) {
+        Collection<Vertex<V>> graphVertices = digraph.vertices();
+        Collection<Edge<E, V>> graphEdges = digraph.edges();
+        int n = graphVertices.size();
+        int m = graphEdges.size();
+
+        this.vertices = (Vertex<V>[]) new Vertex<?>[n];
+        int id = 0;
+        for (Vertex<V> v : graphVertices) {
+            vertices[id++] = v;
+        }
+        /* read after the vertices, so that it covers all of their ids */
+        this.index = new int[digraph.vertexIdCapacity()];
+        Arrays.fill(index, -1);
+        for (int v = 0; v < n; v++) {
+            index[vertices[v].id()] = v;
+        }
+
+        int[] sources = new int[m];
+        int[] targets = new int[m];
+        this.outOffsets = new int[n + 1];
+        this.inOffsets = new int[n + 1];
+        int e = 0;
+        for (Edge<E, V> edge : graphEdges) {
+            Vertex<V>[] ends = edge.vertices();
+            sources[e] = index[ends[0].id()];
+            targets[e] = index[ends[1].id()];
+            outOffsets[sources[e] + 1]++;
+            inOffsets[targets[e] + 1]++;
+            e++;
+        }
+        for (int v = 0; v < n; v++) {
+            outOffsets[v + 1] += outOffsets[v];
+            inOffsets[v + 1] += inOffsets[v];
+        }
+
+        this.outTargets = new int[m];
+        this.edges = (Edge<E, V>[]) new Edge<?, ?>[m];
+        this.inSources = new int[m];
+        this.inEdges = new int[m];
+        int[] outFill = new int[n];
+        int[] inFill = new int[n];
+        e = 0;
+        for (Edge<E, V> edge : graphEdges) {
+            int out = outOffsets[sources[e]] + outFill[sources[e]]++;
+            outTargets[out] = targets[e];
+            edges[out] = edge;
+            e++;
+        }
+        for (int v = 0; v < n; v++) {
+            for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                int in = inOffsets[outTargets[i]] + inFill[outTargets[i]]++;
+                inSources[in] = v;
+                inEdges[in] = i;
+            }
+        }
+    }
+
+    /**
+     * Builds a snapshot of the current state of a digraph
+     *
+     * @param digraph digraph to copy
+     * @param <V> Type of element stored at a vertex
+     * @param <E> Type of element stored at an edge
+     *
+     * @return the snapshot
+     */
+    public static <V, E> DigraphSnapshot<V, E> of(Digraph<V, E> digraph) {
+        return new DigraphSnapshot<>(digraph);
+    }
+
+    /**
+     * Returns the number of vertices in the snapshot
+     *
+     * @return number of vertices
+     */
+    public int numVertices() {
+        return vertices.length;
+    }
+
+    /**
+     * Returns the number of edges in the snapshot
+     *
+     * @return number of edges
+     */
+    public int numEdges() {
+        return edges.length;
+    }
+
+    /**
+     * Returns the vertex handle with the given dense id
+     *
+     * @param v vertex id
+     *
+     * @return vertex
+     */
+    public Vertex<V> vertex(int v) {
+        return vertices[v];
+    }
+
+    /**
+     * Returns the dense id of a vertex handle, in O(1) through its graph id
+     *
+     * @param v vertex
+     *
+     * @return vertex id, or -1 if the vertex was not part of the digraph
+     */
+    public int idOf(Vertex<V> v) {
+        int id = v.id();
+        if (id < 0 || id >= index.length) return -1;
+        int dense = index[id];
+        /* another graph's vertex may have the same graph id */
+        return dense >= 0 && vertices[dense] == v ? dense : -1;
+    }
+
+    /**
+     * Returns the edge handle with the given edge number
+     *
+     * @param e edge number
+     *
+     * @return edge
+     */
+    public Edge<E, V> edge(int e) {
+        return edges[e];
+    }
+
+    /**
+     * Returns the number of edges leaving vertex <code>v</code>
+     *
+     * @param v vertex id
+     *
+     * @return outbound degree
+     */
+    public int outDegree(int v) {
+        return outOffsets[v + 1] - outOffsets[v];
+    }
+
+    /**
+     * Returns the first outbound position of vertex <code>v</code>
+     *
+     * @param v vertex id
+     *
+     * @return first position of the outbound edges of v
+     */
+    public int outStart(int v) {
+        return outOffsets[v];
+    }
+
+    /**
+     * Returns the position just past the outbound edges of vertex <code>v</code>
+     *
+     * @param v vertex id
+     *
+     * @return end (exclusive) of the outbound edges of v
+     */
+    public int outEnd(int v) {
+        return outOffsets[v + 1];
+    }
+
+    /**
+     * Returns the inbound vertex of the outbound position <code>i</code>.
+     * The edge at that position is <code>edge(i)</code>.
+     *
+     * @param i position between outStart(v) and outEnd(v)
+     *
+     * @return id of the inbound vertex
+     */
+    public int outTarget(int i) {
+        return outTargets[i];
+    }
+
+    /**
+     * Returns the number of edges entering vertex <code>v</code>
+     *
+     * @param v vertex id
+     *
+     * @return inbound degree
+     */
+    public int inDegree(int v) {
+        return inOffsets[v + 1] - inOffsets[v];
+    }
+
+    /**
+     * Returns the first inbound position of vertex <code>v</code>
+     *
+     * @param v vertex id
+     *
+     * @return first position of the inbound edges of v
+     */
+    public int inStart(int v) {
+        return inOffsets[v];
+    }
+
+    /**
+     * Returns the position just past the inbound edges of vertex <code>v</code>
+     *
+     * @param v vertex id
+     *
+     * @return end (exclusive) of the inbound edges of v
+     */
+    public int inEnd(int v) {
+        return inOffsets[v + 1];
+    }
+
+    /**
+     * Returns the outbound vertex of the inbound position <code>i</code>
+     *
+     * @param i position between inStart(v) and inEnd(v)
+     *
+     * @return id of the outbound vertex
+     */
+    public int inSource(int i) {
+        return inSources[i];
+    }
+
+    /**
+     * Returns the edge number of the inbound position <code>i</code>
+     *
+     * @param i position between inStart(v) and inEnd(v)
+     *
+     * @return edge number, usable with {@link #edge(int)}
+     */
+    public int inEdge(int i) {
+        return inEdges[i];
+    }
+}
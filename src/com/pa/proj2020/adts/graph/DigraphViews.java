@@ -0,0 +1,492 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Read-only views of a {@link Digraph} that are evaluated on the fly against
+ * the base digraph: nothing is copied when a view is created, and every
+ * change to the base digraph is visible through its views.
+ * <br>
+ * Views share the vertices, ids and weights of the base digraph, so they can
+ * be handed to anything that reads a {@link Graph}, e.g., a
+ * <code>SmartGraphPanel</code>. Since their contents can also change when the
+ * predicates they filter by do, views do not publish change events. Counting
+ * the vertices or edges of a filtered view takes time proportional to the
+ * base digraph. Methods that would change a view throw
+ * {@link UnsupportedOperationException}.
+ */
+public final class DigraphViews {
+
+    private DigraphViews() {
+    }
+
+    /**
+     * Returns the subgraph induced by the vertices that satisfy a predicate:
+     * those vertices and every edge between two of them
+     *
+     * @param base digraph to view
+     * @param vertexFilter predicate of the vertices to keep
+     *
+     * @return read-only view
+     */
+    public static <V, E> Digraph<V, E> induced(Digraph<V, E> base, Predicate<? super Vertex<V>> vertexFilter) {
+        return new FilteredDigraph<>(base, vertexFilter, e -> true);
+    }
+
+    /**
+     * Returns the subgraph induced by a set of vertices: those of them that are
+     * in the base digraph and every edge between two of them
+     *
+     * @param base digraph to view
+     * @param vertices vertices to keep, read whenever the view is
+     *
+     * @return read-only view
+     */
+    public static <V, E> Digraph<V, E> induced(Digraph<V, E> base, Set<? extends Vertex<V>> vertices) {
+        return new FilteredDigraph<>(base, vertices::contains, e -> true);
+    }
+
+    /**
+     * Returns the spanning subgraph with the edges that satisfy a predicate:
+     * every vertex and only those edges
+     *
+     * @param base digraph to view
+     * @param edgeFilter predicate of the edges to keep
+     *
+     * @return read-only view
+     */
+    public static <V, E> Digraph<V, E> filterEdges(Digraph<V, E> base, Predicate<? super Edge<E, V>> edgeFilter) {
+        return new FilteredDigraph<>(base, v -> true, edgeFilter);
+    }
+
+    /**
+     * Returns the digraph with the direction of every edge reversed. Its
+     * edges wrap those of the base digraph, are equal to each other when they
+     * wrap the same edge and report their vertices in reverse order.
+     *
+     * @param base digraph to view
+     *
+     * @return read-only view
+     */
+    public static <V, E> Digraph<V, E> reversed(Digraph<V, E> base) {
+        return new ReversedDigraph<>(base);
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Views are read-only.");
+    }
+
+    /**
+     * Base class of the views, which rejects every change
+     */
+    private abstract static class ReadOnlyDigraph<V, E> implements Digraph<V, E> {
+
+        @Override
+        public Vertex<V> insertVertex(V vElement) {
+            throw readOnly();
+        }
+
+        @Override
+        public Edge<E, V> insertEdge(Vertex<V> outbound, Vertex<V> inbound, E edgeElement) {
+            throw readOnly();
+        }
+
+        @Override
+        public Edge<E, V> insertEdge(V outboundElement, V inboundElement, E edgeElement) {
+            throw readOnly();
+        }
+
+        @Override
+        public Optional<Vertex<V>> tryInsertVertex(V vElement) {
+            throw readOnly();
+        }
+
+        @Override
+        public Optional<Edge<E, V>> tryInsertEdge(V outboundElement, V inboundElement, E edgeElement) {
+            throw readOnly();
+        }
+
+        @Override
+        public V removeVertex(Vertex<V> v) {
+            throw readOnly();
+        }
+
+        @Override
+        public E removeEdge(Edge<E, V> e) {
+            throw readOnly();
+        }
+
+        @Override
+        public V replace(Vertex<V> v, V newElement) {
+            throw readOnly();
+        }
+
+        @Override
+        public E replace(Edge<E, V> e, E newElement) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setWeight(Edge<E, V> e, double weight) {
+            throw readOnly();
+        }
+    }
+
+    /**
+     * View with the vertices and the edges of the base digraph that satisfy
+     * two predicates. An edge is kept only if both of its vertices are.
+     */
+    private static final class FilteredDigraph<V, E> extends ReadOnlyDigraph<V, E> {
+
+        private final Digraph<V, E> base;
+        private final Predicate<? super Vertex<V>> vertexFilter;
+        private final Predicate<? super Edge<E, V>> edgeFilter;
+
+        FilteredDigraph(Digraph<V, E> base, Predicate<? super Vertex<V>> vertexFilter,
+                        Predicate<? super Edge<E, V>> edgeFilter) {
+            if (base == null || vertexFilter == null || edgeFilter == null) throw new NullPointerException();
+            this.base = base;
+            this.vertexFilter = vertexFilter;
+            this.edgeFilter = edgeFilter;
+        }
+
+        private boolean keeps(Edge<E, V> e) {
+            Vertex<V>[] vertices = e.vertices();
+            return edgeFilter.test(e) && vertexFilter.test(vertices[0]) && vertexFilter.test(vertices[1]);
+        }
+
+        private Vertex<V> checkVertex(Vertex<V> v) throws InvalidVertexException {
+            if (v == null) throw new InvalidVertexException("Null vertex.");
+            if (!vertexFilter.test(v)) throw new InvalidVertexException("Vertex does not belong to this view.");
+            return v;
+        }
+
+        private Edge<E, V> checkEdge(Edge<E, V> e) throws InvalidEdgeException {
+            if (e == null) throw new InvalidEdgeException("Null edge.");
+            if (!keeps(e)) throw new InvalidEdgeException("Edge does not belong to this view.");
+            return e;
+        }
+
+        @Override
+        public int numVertices() {
+            return vertices().size();
+        }
+
+        @Override
+        public int numEdges() {
+            return edges().size();
+        }
+
+        @Override
+        public int vertexIdCapacity() {
+            return base.vertexIdCapacity();
+        }
+
+        @Override
+        public int edgeIdCapacity() {
+            return base.edgeIdCapacity();
+        }
+
+        @Override
+        public Collection<Vertex<V>> vertices() {
+            return new FilteredCollection<>(base.vertices(), vertexFilter);
+        }
+
+        @Override
+        public Collection<Edge<E, V>> edges() {
+            return new FilteredCollection<>(base.edges(), this::keeps);
+        }
+
+        @Override
+        public Collection<Edge<E, V>> incidentEdges(Vertex<V> inbound) throws InvalidVertexException {
+            return new FilteredCollection<>(base.incidentEdges(checkVertex(inbound)), this::keeps);
+        }
+
+        @Override
+        public Collection<Edge<E, V>> outboundEdges(Vertex<V> outbound) throws InvalidVertexException {
+            return new FilteredCollection<>(base.outboundEdges(checkVertex(outbound)), this::keeps);
+        }
+
+        @Override
+        public Vertex<V> opposite(Vertex<V> v, Edge<E, V> e) throws InvalidVertexException, InvalidEdgeException {
+            return base.opposite(checkVertex(v), checkEdge(e));
+        }
+
+        @Override
+        public boolean areAdjacent(Vertex<V> outbound, Vertex<V> inbound) throws InvalidVertexException {
+            checkVertex(outbound);
+            checkVertex(inbound);
+            if (!base.areAdjacent(outbound, inbound)) return false;
+
+            return base.findEdge(outbound.element(), inbound.element()).filter(edgeFilter).isPresent();
+        }
+
+        @Override
+        public Optional<Vertex<V>> findVertex(V vElement) {
+            return base.findVertex(vElement).filter(vertexFilter);
+        }
+
+        @Override
+        public boolean containsVertex(V vElement) {
+            return findVertex(vElement).isPresent();
+        }
+
+        @Override
+        public Optional<Edge<E, V>> findEdge(V outboundElement, V inboundElement) {
+            return base.findEdge(outboundElement, inboundElement).filter(this::keeps);
+        }
+
+        @Override
+        public double weight(Edge<E, V> e) throws InvalidEdgeException {
+            return base.weight(checkEdge(e));
+        }
+
+        @Override
+        public String toString() {
+            return "FilteredDigraph{" + base + '}';
+        }
+    }
+
+    /**
+     * View of the base digraph with every edge reversed
+     */
+    private static final class ReversedDigraph<V, E> extends ReadOnlyDigraph<V, E> {
+
+        private final Digraph<V, E> base;
+        private final Function<Edge<E, V>, Edge<E, V>> wrap = e -> new ReversedEdge<>(this, e);
+
+        ReversedDigraph(Digraph<V, E> base) {
+            if (base == null) throw new NullPointerException();
+            this.base = base;
+        }
+
+        private Edge<E, V> unwrap(Edge<E, V> e) throws InvalidEdgeException {
+            if (e == null) throw new InvalidEdgeException("Null edge.");
+            if (!(e instanceof ReversedEdge) || ((ReversedEdge<E, V>) e).view != this) {
+                throw new InvalidEdgeException("Edge does not belong to this view.");
+            }
+            return ((ReversedEdge<E, V>) e).edge;
+        }
+
+        @Override
+        public int numVertices() {
+            return base.numVertices();
+        }
+
+        @Override
+        public int numEdges() {
+            return base.numEdges();
+        }
+
+        @Override
+        public int vertexIdCapacity() {
+            return base.vertexIdCapacity();
+        }
+
+        @Override
+        public int edgeIdCapacity() {
+            return base.edgeIdCapacity();
+        }
+
+        @Override
+        public Collection<Vertex<V>> vertices() {
+            return base.vertices();
+        }
+
+        @Override
+        public Collection<Edge<E, V>> edges() {
+            return new MappedCollection<>(base.edges(), wrap);
+        }
+
+        @Override
+        public Collection<Edge<E, V>> incidentEdges(Vertex<V> inbound) throws InvalidVertexException {
+            return new MappedCollection<>(base.outboundEdges(inbound), wrap);
+        }
+
+        @Override
+        public Collection<Edge<E, V>> outboundEdges(Vertex<V> outbound) throws InvalidVertexException {
+            return new MappedCollection<>(base.incidentEdges(outbound), wrap);
+        }
+
+        @Override
+        public Vertex<V> opposite(Vertex<V> v, Edge<E, V> e) throws InvalidVertexException, InvalidEdgeException {
+            return base.opposite(v, unwrap(e));
+        }
+
+        @Override
+        public boolean areAdjacent(Vertex<V> outbound, Vertex<V> inbound) throws InvalidVertexException {
+            return base.areAdjacent(inbound, outbound);
+        }
+
+        @Override
+        public Optional<Vertex<V>> findVertex(V vElement) {
+            return base.findVertex(vElement);
+        }
+
+        @Override
+        public boolean containsVertex(V vElement) {
+            return base.containsVertex(vElement);
+        }
+
+        @Override
+        public Optional<Edge<E, V>> findEdge(V outboundElement, V inboundElement) {
+            return base.findEdge(inboundElement, outboundElement).map(wrap);
+        }
+
+        @Override
+        public double weight(Edge<E, V> e) throws InvalidEdgeException {
+            return base.weight(unwrap(e));
+        }
+
+        @Override
+        public String toString() {
+            return "ReversedDigraph{" + base + '}';
+        }
+    }
+
+    private static final class ReversedEdge<E, V> implements Edge<E, V> {
+
+        private final ReversedDigraph<V, E> view;
+        private final Edge<E, V> edge;
+
+        ReversedEdge(ReversedDigraph<V, E> view, Edge<E, V> edge) {
+            this.view = view;
+            this.edge = edge;
+        }
+
+        @Override
+        public E element() {
+            return edge.element();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Vertex<V>[] vertices() {
+            Vertex<V>[] vertices = edge.vertices();
+            return (Vertex<V>[]) new Vertex<?>[]{vertices[1], vertices[0]};
+        }
+
+        @Override
+        public int id() {
+            return edge.id();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ReversedEdge)) return false;
+            ReversedEdge<?, ?> other = (ReversedEdge<?, ?>) o;
+            return other.view == view && other.edge == edge;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(edge);
+        }
+
+        @Override
+        public String toString() {
+            return "ReversedEdge{" + edge + '}';
+        }
+    }
+
+    /**
+     * Read-only live view of the elements of a collection that satisfy a predicate
+     */
+    private static final class FilteredCollection<T> extends AbstractCollection<T> {
+
+        private final Collection<T> base;
+        private final Predicate<? super T> filter;
+
+        FilteredCollection(Collection<T> base, Predicate<? super T> filter) {
+            this.base = base;
+            this.filter = filter;
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (T t : base) {
+                if (filter.test(t)) size++;
+            }
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            if (!base.contains(o)) return false;
+            return filter.test((T) o);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            Iterator<T> iterator = base.iterator();
+            return new Iterator<>() {
+                private T next = advance();
+
+                private T advance() {
+                    while (iterator.hasNext()) {
+                        T t = iterator.next();
+                        if (filter.test(t)) return t;
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public T next() {
+                    if (next == null) throw new NoSuchElementException();
+                    T t = next;
+                    next = advance();
+                    return t;
+                }
+            };
+        }
+    }
+
+    /**
+     * Read-only live view of a collection with a function applied to its elements
+     */
+    private static final class MappedCollection<T, R> extends AbstractCollection<R> {
+
+        private final Collection<T> base;
+        private final Function<? super T, ? extends R> mapper;
+
+        MappedCollection(Collection<T> base, Function<? super T, ? extends R> mapper) {
+            this.base = base;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public int size() {
+            return base.size();
+        }
+
+        @Override
+        public Iterator<R> iterator() {
+            Iterator<T> iterator = base.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public R next() {
+                    return mapper.apply(iterator.next());
+                }
+            };
+        }
+    }
+}
@@ -55,6 +55,18 @@ public interface Edge<E, V> {
      * @return      an array of length 2, containing the vertices at both ends.
      */
     public Vertex<V>[] vertices();
+
+    /**
+     * Returns the id of the edge in its graph.
+     * 
+     * Ids are dense: they lie between <code>0</code> and
+     * {@link Graph#edgeIdCapacity()} <code>- 1</code>, so per-edge data can
+     * be kept in arrays indexed by id. An id stays the same while the edge
+     * belongs to the graph, but may be given to a new edge after removal.
+     * 
+     * @return      edge id
+     */
+    public int id();
     
     
 }
@@ -24,6 +24,9 @@
 package com.pa.proj2020.adts.graph;
 
 import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * A graph is made up of a set of vertices connected by edges, where the edges 
@@ -51,6 +54,22 @@ public interface Graph<V, E> {
      */
     public int numEdges();
 
+    /**
+     * Returns an exclusive upper bound of the ids of the graph's vertices,
+     * i.e., the size an array indexed by {@link Vertex#id()} must have.
+     * 
+     * @return      vertex id capacity
+     */
+    public int vertexIdCapacity();
+
+    /**
+     * Returns an exclusive upper bound of the ids of the graph's edges,
+     * i.e., the size an array indexed by {@link Edge#id()} must have.
+     * 
+     * @return      edge id capacity
+     */
+    public int edgeIdCapacity();
+
     /**
      * Returns the vertices of the graph as a collection.
      * 
@@ -83,6 +102,22 @@ public interface Graph<V, E> {
     public Collection<Edge<E, V>> incidentEdges(Vertex<V> v)
             throws InvalidVertexException;
 
+    /**
+     * Performs the given action for each <i>incident</i> edge of vertex
+     * <code>v</code>, without creating an intermediate collection.
+     * 
+     * The action must not modify the graph.
+     * 
+     * @param v         vertex for which to visit the incident edges
+     * @param action    action to perform on each edge
+     * 
+     * @exception InvalidVertexException    if the vertex is invalid for the graph
+     */
+    public default void forEachIncident(Vertex<V> v, Consumer<? super Edge<E, V>> action)
+            throws InvalidVertexException {
+        incidentEdges(v).forEach(action);
+    }
+
     /**
      * Given vertex <code>v</code>, return the opposite vertex at the other end
      * of edge <code>e</code>.
@@ -115,6 +150,107 @@ public interface Graph<V, E> {
     public boolean areAdjacent(Vertex<V> u, Vertex<V> v)
             throws InvalidVertexException;
 
+    /**
+     * Returns the vertex that stores a given element, if there is one.
+     * 
+     * Unlike the mutators, this method never throws: a missing element is
+     * reported by an empty result.
+     * 
+     * @param vElement      the element to look for
+     * 
+     * @return              the vertex containing <code>vElement</code>
+     *                      according to the equality of
+     *                      {@link Object#equals(java.lang.Object) } method,
+     *                      or an empty optional
+     */
+    public default Optional<Vertex<V>> findVertex(V vElement) {
+        for (Vertex<V> v : vertices()) {
+            if (Objects.equals(v.element(), vElement)) return Optional.of(v);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Evaluates whether there is a vertex that stores a given element.
+     * 
+     * @param vElement      the element to look for
+     * 
+     * @return              true if some vertex contains <code>vElement</code>,
+     *                      false otherwise
+     */
+    public default boolean containsVertex(V vElement) {
+        return findVertex(vElement).isPresent();
+    }
+
+    /**
+     * Returns an edge connecting the vertices that store the given elements,
+     * if there is one.
+     * 
+     * @param vElement1     a vertex's stored element
+     * @param vElement2     another vertex's stored element
+     * 
+     * @return              an edge connecting both vertices, or an empty
+     *                      optional if either element is not in the graph or
+     *                      the vertices are not adjacent
+     */
+    public default Optional<Edge<E, V>> findEdge(V vElement1, V vElement2) {
+        Optional<Vertex<V>> u = findVertex(vElement1);
+        Optional<Vertex<V>> v = findVertex(vElement2);
+        if (u.isEmpty() || v.isEmpty()) return Optional.empty();
+
+        for (Edge<E, V> e : incidentEdges(u.get())) {
+            if (opposite(u.get(), e) == v.get()) return Optional.of(e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Inserts a new vertex with a given element, unless there already is a
+     * vertex containing it.
+     * 
+     * This is the non-throwing counterpart of {@link #insertVertex(Object)},
+     * meant for callers that expect duplicates and would otherwise pay for
+     * an exception on every one of them.
+     * 
+     * @param vElement      the element to store at the vertex
+     * 
+     * @return              the newly created vertex, or an empty optional if
+     *                      <code>vElement</code> is already in the graph
+     */
+    public default Optional<Vertex<V>> tryInsertVertex(V vElement) {
+        if (containsVertex(vElement)) return Optional.empty();
+        return Optional.of(insertVertex(vElement));
+    }
+
+    /**
+     * Inserts a new edge with a given element between the vertices that store
+     * the given elements, unless the insertion would be rejected.
+     * 
+     * This is the non-throwing counterpart of
+     * {@link #insertEdge(Object, Object, Object)}. Implementations override it
+     * to check their own rules up front; this default falls back to catching
+     * the exception.
+     * 
+     * @param vElement1     a vertex's stored element
+     * @param vElement2     another vertex's stored element
+     * @param edgeElement   the element to store in the new edge
+     * 
+     * @return              the newly created edge, or an empty optional if
+     *                      either element is not in the graph or the edge
+     *                      could not be inserted
+     */
+    public default Optional<Edge<E, V>> tryInsertEdge(V vElement1, V vElement2, E edgeElement) {
+        Optional<Vertex<V>> u = findVertex(vElement1);
+        Optional<Vertex<V>> v = findVertex(vElement2);
+        if (u.isEmpty() || v.isEmpty()) return Optional.empty();
+
+        try {
+            return Optional.of(insertEdge(u.get(), v.get(), edgeElement));
+        } catch (InvalidEdgeException e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Inserts a new vertex with a given element, returning its reference.
      * 
@@ -239,4 +375,30 @@ public interface Graph<V, E> {
      *                                      method.
      */
     public E replace(Edge<E, V> e, E newElement) throws InvalidEdgeException;
+
+    /**
+     * Registers a listener that is notified of every change made to the graph
+     * from now on.
+     * 
+     * @param listener      listener to register
+     * 
+     * @exception UnsupportedOperationException    if the implementation does
+     *                                             not publish change events
+     */
+    public default void addGraphListener(GraphListener<V, E> listener) {
+        throw new UnsupportedOperationException("Change events are not supported.");
+    }
+
+    /**
+     * Unregisters a listener previously registered with
+     * {@link #addGraphListener(GraphListener)}.
+     * 
+     * @param listener      listener to unregister
+     * 
+     * @exception UnsupportedOperationException    if the implementation does
+     *                                             not publish change events
+     */
+    public default void removeGraphListener(GraphListener<V, E> listener) {
+        throw new UnsupportedOperationException("Change events are not supported.");
+    }
 }
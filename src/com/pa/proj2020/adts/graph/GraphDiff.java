@@ -0,0 +1,300 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Differences between two graphs, as the vertices and edges that must be
+ * removed from and added to the first one to turn it into the second.
+ * <br>
+ * Graphs are compared by their elements, since they do not share vertex or
+ * edge references: vertices match when their elements are equal, and edges
+ * when their elements and the elements at their ends are. Edges of a
+ * {@link Digraph} match in the same direction only; edges of other graphs
+ * match in either direction. A vertex or edge whose element changed is listed
+ * as removed and added again.
+ * <br>
+ * Computing a diff takes O(V + E), with hash sets of the elements of both graphs.
+ *
+ * @param <V> Type of element stored at a vertex
+ * @param <E> Type of element stored at an edge
+ */
+public final class GraphDiff<V, E> {
+
+    private final boolean directed;
+    private final List<V> removedVertices;
+    private final List<V> addedVertices;
+    private final List<EdgeChange<V, E>> removedEdges;
+    private final List<EdgeChange<V, E>> addedEdges;
+
+    private GraphDiff(boolean directed, List<V> removedVertices, List<V> addedVertices,
+                      List<EdgeChange<V, E>> removedEdges, List<EdgeChange<V, E>> addedEdges) {
+        this.directed = directed;
+        this.removedVertices = Collections.unmodifiableList(removedVertices);
+        this.addedVertices = Collections.unmodifiableList(addedVertices);
+        this.removedEdges = Collections.unmodifiableList(removedEdges);
+        this.addedEdges = Collections.unmodifiableList(addedEdges);
+    }
+
+    /**
+     * Computes the changes that turn a graph into another one
+     *
+     * @param from graph before the changes
+     * @param to graph after the changes
+     *
+     * @return diff
+     */
+    public static <V, E> GraphDiff<V, E> between(Graph<V, E> from, Graph<V, E> to) {
+        boolean directed = from instanceof Digraph && to instanceof Digraph;
+
+        Set<V> fromVertices = new HashSet<>(tableCapacity(from.numVertices()));
+        for (Vertex<V> v : from.vertices()) fromVertices.add(v.element());
+        Set<V> toVertices = new HashSet<>(tableCapacity(to.numVertices()));
+        for (Vertex<V> v : to.vertices()) toVertices.add(v.element());
+
+        List<V> removedVertices = new ArrayList<>();
+        for (V v : fromVertices) {
+            if (!toVertices.contains(v)) removedVertices.add(v);
+        }
+        List<V> addedVertices = new ArrayList<>();
+        for (V v : toVertices) {
+            if (!fromVertices.contains(v)) addedVertices.add(v);
+        }
+
+        /* counts, so that parallel edges with equal elements are matched one to one */
+        Map<EdgeChange<V, E>, Integer> toEdges = new HashMap<>(tableCapacity(to.numEdges()));
+        for (Edge<E, V> e : to.edges()) toEdges.merge(new EdgeChange<>(e, directed), 1, Integer::sum);
+
+        List<EdgeChange<V, E>> removedEdges = new ArrayList<>();
+        for (Edge<E, V> e : from.edges()) {
+            EdgeChange<V, E> change = new EdgeChange<>(e, directed);
+            if (toEdges.merge(change, -1, Integer::sum) < 0) removedEdges.add(change);
+        }
+        List<EdgeChange<V, E>> addedEdges = new ArrayList<>();
+        for (Map.Entry<EdgeChange<V, E>, Integer> entry : toEdges.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) addedEdges.add(entry.getKey());
+        }
+
+        return new GraphDiff<>(directed, removedVertices, addedVertices, removedEdges, addedEdges);
+    }
+
+    private static int tableCapacity(int expectedSize) {
+        return Math.max(16, (int) (expectedSize / 0.75f) + 1);
+    }
+
+    /**
+     * Returns the vertex elements that are in the first graph but not in the second
+     *
+     * @return list of removed vertex elements
+     */
+    public List<V> removedVertices() {
+        return removedVertices;
+    }
+
+    /**
+     * Returns the vertex elements that are in the second graph but not in the first
+     *
+     * @return list of added vertex elements
+     */
+    public List<V> addedVertices() {
+        return addedVertices;
+    }
+
+    /**
+     * Returns the edges that are in the first graph but not in the second, once per missing copy
+     *
+     * @return list of removed edges
+     */
+    public List<EdgeChange<V, E>> removedEdges() {
+        return removedEdges;
+    }
+
+    /**
+     * Returns the edges that are in the second graph but not in the first, once per extra copy
+     *
+     * @return list of added edges
+     */
+    public List<EdgeChange<V, E>> addedEdges() {
+        return addedEdges;
+    }
+
+    /**
+     * Returns if both graphs have the same elements
+     *
+     * @return boolean
+     */
+    public boolean isEmpty() {
+        return removedVertices.isEmpty() && addedVertices.isEmpty() && removedEdges.isEmpty() && addedEdges.isEmpty();
+    }
+
+    /**
+     * Applies the changes to a graph: removes the removed edges and vertices,
+     * then inserts the added vertices and edges.
+     * <br>
+     * On a {@link Digraph} that supports transactions, the changes are made
+     * in a single transaction, so listeners are notified once and nothing is
+     * changed if a change fails. Otherwise the changes made before a failure
+     * are kept.
+     *
+     * @param target graph to change, usually the first of the compared ones
+     *
+     * @exception InvalidVertexException if a removed vertex is missing from the
+     *                                   target, or an added one is already there
+     * @exception InvalidEdgeException if a removed edge is missing from the target
+     */
+    public void applyTo(Graph<V, E> target) throws InvalidVertexException, InvalidEdgeException {
+        if (!(target instanceof Digraph) || ((Digraph<V, E>) target).inTransaction()) {
+            apply(target);
+            return;
+        }
+
+        Digraph<V, E> digraph = (Digraph<V, E>) target;
+        try {
+            digraph.begin();
+        } catch (UnsupportedOperationException e) {
+            apply(target);
+            return;
+        }
+        try {
+            apply(target);
+            digraph.commit();
+        } finally {
+            if (digraph.inTransaction()) digraph.rollback();
+        }
+    }
+
+    private void apply(Graph<V, E> target) {
+        for (EdgeChange<V, E> change : removedEdges) {
+            Edge<E, V> e = find(target, change);
+            if (e == null) throw new InvalidEdgeException("No edge matches " + change);
+            target.removeEdge(e);
+        }
+        for (V element : removedVertices) {
+            Optional<Vertex<V>> v = target.findVertex(element);
+            if (v.isEmpty()) throw new InvalidVertexException("No vertex contains " + element);
+            target.removeVertex(v.get());
+        }
+        for (V element : addedVertices) {
+            target.insertVertex(element);
+        }
+        for (EdgeChange<V, E> change : addedEdges) {
+            target.insertEdge(change.outbound, change.inbound, change.element);
+        }
+    }
+
+    /**
+     * Returns the edge of the target that matches a change, in O(1) through
+     * {@link Graph#findEdge(Object, Object)} when the target has a single edge
+     * between the two vertices, or else in O(degree)
+     */
+    private Edge<E, V> find(Graph<V, E> target, EdgeChange<V, E> change) {
+        Optional<Edge<E, V>> found = target.findEdge(change.outbound, change.inbound);
+        if (found.isPresent() && change.matches(found.get(), directed)) return found.get();
+
+        Optional<Vertex<V>> v = target.findVertex(change.outbound);
+        if (v.isEmpty()) return null;
+        Iterable<Edge<E, V>> candidates = directed
+                ? ((Digraph<V, E>) target).outboundEdges(v.get())
+                : target.incidentEdges(v.get());
+        for (Edge<E, V> e : candidates) {
+            if (change.matches(e, directed)) return e;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "GraphDiff{removedVertices=" + removedVertices + ", addedVertices=" + addedVertices
+                + ", removedEdges=" + removedEdges + ", addedEdges=" + addedEdges + '}';
+    }
+
+    /**
+     * An edge that was removed or added, by its element and the elements at its ends
+     *
+     * @param <V> Type of element stored at a vertex
+     * @param <E> Type of element stored at an edge
+     */
+    public static final class EdgeChange<V, E> {
+
+        private final V outbound;
+        private final V inbound;
+        private final E element;
+        private final boolean directed;
+
+        private EdgeChange(Edge<E, V> edge, boolean directed) {
+            Vertex<V>[] vertices = edge.vertices();
+            this.outbound = vertices[0].element();
+            this.inbound = vertices[1].element();
+            this.element = edge.element();
+            this.directed = directed;
+        }
+
+        /**
+         * Returns the element at the outbound vertex, or at the first vertex
+         * of an undirected edge
+         *
+         * @return vertex element
+         */
+        public V outbound() {
+            return outbound;
+        }
+
+        /**
+         * Returns the element at the inbound vertex, or at the second vertex
+         * of an undirected edge
+         *
+         * @return vertex element
+         */
+        public V inbound() {
+            return inbound;
+        }
+
+        /**
+         * Returns the element of the edge
+         *
+         * @return edge element
+         */
+        public E element() {
+            return element;
+        }
+
+        private boolean matches(Edge<E, V> edge, boolean directed) {
+            if (!Objects.equals(element, edge.element())) return false;
+            Vertex<V>[] vertices = edge.vertices();
+            V out = vertices[0].element();
+            V in = vertices[1].element();
+            return Objects.equals(outbound, out) && Objects.equals(inbound, in)
+                    || !directed && Objects.equals(outbound, in) && Objects.equals(inbound, out);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof EdgeChange)) return false;
+            EdgeChange<?, ?> other = (EdgeChange<?, ?>) o;
+            if (directed != other.directed || !Objects.equals(element, other.element)) return false;
+            return Objects.equals(outbound, other.outbound) && Objects.equals(inbound, other.inbound)
+                    || !directed && Objects.equals(outbound, other.inbound) && Objects.equals(inbound, other.outbound);
+        }
+
+        @Override
+        public int hashCode() {
+            /* symmetric in the ends, so that undirected edges hash alike in either direction */
+            int ends = directed ? 31 * Objects.hashCode(outbound) + Objects.hashCode(inbound)
+                    : Objects.hashCode(outbound) + Objects.hashCode(inbound);
+            return 31 * ends + Objects.hashCode(element);
+        }
+
+        @Override
+        public String toString() {
+            return "EdgeChange{" + outbound + (directed ? " -> " : " - ") + inbound + ", " + element + '}';
+        }
+    }
+}
@@ -25,15 +25,23 @@ package com.pa.proj2020.adts.graph;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * ADT Graph implementation that stores a collection of edges (and vertices) and
  * where each edge contains the references for the vertices it connects.
  * <br>
  * Does not allow duplicates of stored elements through <b>equals</b> criteria.
+ * <br>
+ * Each vertex also indexes its incident edges and how many edges connect it
+ * to each neighbor, so incidence and adjacency queries do not scan the edge
+ * collection.
  *
  * @param <V> Type of element stored at a vertex
  * @param <E> Type of element stored at an edge
@@ -47,12 +55,19 @@ public class GraphEdgeList<V, E> implements Graph<V, E> {
     private Map<V, Vertex<V>> vertices;
     private Map<E, Edge<E, V>> edges;
 
+    private final IdAllocator vertexIds;
+    private final IdAllocator edgeIds;
+
+    private final GraphEventSupport<V, E> events = new GraphEventSupport<>();
+
     /**
      * Creates a empty graph.
      */
     public GraphEdgeList() {
         this.vertices = new HashMap<>();
         this.edges = new HashMap<>();
+        this.vertexIds = new IdAllocator();
+        this.edgeIds = new IdAllocator();
     }
 
     @Override
@@ -65,40 +80,43 @@ public class GraphEdgeList<V, E> implements Graph<V, E> {
         return edges.size();
     }
 
+    @Override
+    public int vertexIdCapacity() {
+        return vertexIds.capacity();
+    }
+
+    @Override
+    public int edgeIdCapacity() {
+        return edgeIds.capacity();
+    }
+
+    /**
+     * Returns a read-only live view of the vertices.
+     */
     @Override
     public Collection<Vertex<V>> vertices() {
-        List<Vertex<V>> list = new ArrayList<>();
-        for (Vertex<V> v : vertices.values()) {
-            list.add(v);
-        }
-        return list;
+        return Collections.unmodifiableCollection(vertices.values());
     }
 
+    /**
+     * Returns a read-only live view of the edges.
+     */
     @Override
     public Collection<Edge<E, V>> edges() {
-        List<Edge<E, V>> list = new ArrayList<>();
-        for (Edge<E, V> e : edges.values()) {
-            list.add(e);
-        }
-        return list;
+        return Collections.unmodifiableCollection(edges.values());
     }
 
+    /**
+     * Returns a read-only live view of the incident edges.
+     */
     @Override
     public Collection<Edge<E, V>> incidentEdges(Vertex<V> v) throws InvalidVertexException {
+        return Collections.unmodifiableCollection(checkVertex(v).incident);
+    }
 
-        checkVertex(v);
-
-        List<Edge<E, V>> incidentEdges = new ArrayList<>();
-        for (Edge<E, V> edge : edges.values()) {
-
-            if (((MyEdge) edge).contains(v)) {
-                /* edge.vertices()[0] == v || edge.vertices()[1] == v */
-                incidentEdges.add(edge);
-            }
-
-        }
-
-        return incidentEdges;
+    @Override
+    public void forEachIncident(Vertex<V> v, Consumer<? super Edge<E, V>> action) throws InvalidVertexException {
+        checkVertex(v).incident.forEach(action);
     }
 
     @Override
@@ -121,16 +139,10 @@ public class GraphEdgeList<V, E> implements Graph<V, E> {
     @Override
     public synchronized boolean areAdjacent(Vertex<V> u, Vertex<V> v) throws InvalidVertexException {
         //we allow loops, so we do not check if u == v
-        checkVertex(v);
-        checkVertex(u);
+        MyVertex inVertex = checkVertex(v);
+        MyVertex outVertex = checkVertex(u);
 
-        /* find and edge that contains both u and v */
-        for (Edge<E, V> edge : edges.values()) {
-            if (((MyEdge) edge).contains(u) && ((MyEdge) edge).contains(v)) {
-                return true;
-            }
-        }
-        return false;
+        return outVertex.adjacent.containsKey(inVertex);
     }
 
     @Override
@@ -142,6 +154,7 @@ public class GraphEdgeList<V, E> implements Graph<V, E> {
         MyVertex newVertex = new MyVertex(vElement);
 
         vertices.put(vElement, newVertex);
+        events.vertexAdded(newVertex);
 
         return newVertex;
     }
@@ -157,11 +170,7 @@ public class GraphEdgeList<V, E> implements Graph<V, E> {
         MyVertex outVertex = checkVertex(u);
         MyVertex inVertex = checkVertex(v);
 
-        MyEdge newEdge = new MyEdge(edgeElement, outVertex, inVertex);
-
-        edges.put(edgeElement, newEdge);
-
-        return newEdge;
+        return link(new MyEdge(edgeElement, outVertex, inVertex));
 
     }
 
@@ -183,37 +192,67 @@ public class GraphEdgeList<V, E> implements Graph<V, E> {
         MyVertex outVertex = vertexOf(vElement1);
         MyVertex inVertex = vertexOf(vElement2);
 
-        MyEdge newEdge = new MyEdge(edgeElement, outVertex, inVertex);
+        return link(new MyEdge(edgeElement, outVertex, inVertex));
+
+    }
+
+    @Override
+    public synchronized Optional<Vertex<V>> findVertex(V vElement) {
+        return Optional.ofNullable(vertexOf(vElement));
+    }
+
+    @Override
+    public synchronized boolean containsVertex(V vElement) {
+        return existsVertexWith(vElement);
+    }
 
-        edges.put(edgeElement, newEdge);
+    @Override
+    public synchronized Optional<Edge<E, V>> findEdge(V vElement1, V vElement2) {
+        MyVertex u = vertexOf(vElement1);
+        MyVertex v = vertexOf(vElement2);
+        if (u == null || v == null || !u.adjacent.containsKey(v)) return Optional.empty();
+
+        for (Edge<E, V> edge : u.incident) {
+            if (((MyEdge) edge).contains(v) && (u != v || edge.vertices()[0] == edge.vertices()[1])) {
+                return Optional.of(edge);
+            }
+        }
+        return Optional.empty();
+    }
 
-        return newEdge;
+    @Override
+    public synchronized Optional<Edge<E, V>> tryInsertEdge(V vElement1, V vElement2, E edgeElement) {
+        MyVertex u = vertexOf(vElement1);
+        MyVertex v = vertexOf(vElement2);
+        if (u == null || v == null || existsEdgeWith(edgeElement)) return Optional.empty();
 
+        return Optional.of(link(new MyEdge(edgeElement, u, v)));
     }
 
     @Override
     public synchronized V removeVertex(Vertex<V> v) throws InvalidVertexException {
-        checkVertex(v);
+        MyVertex vertex = checkVertex(v);
 
         V element = v.element();
 
         //remove incident edges
-        Iterable<Edge<E, V>> incidentEdges = incidentEdges(v);
-        for (Edge<E, V> edge : incidentEdges) {
-            edges.remove(edge.element());
+        for (Edge<E, V> edge : new ArrayList<>(vertex.incident)) {
+            unlink((MyEdge) edge);
         }
 
         vertices.remove(v.element());
+        vertexIds.release(vertex.id);
+        events.vertexRemoved(vertex);
 
         return element;
     }
 
     @Override
     public synchronized E removeEdge(Edge<E, V> e) throws InvalidEdgeException {
-        checkEdge(e);
+        MyEdge edge = checkEdge(e);
 
         E element = e.element();
-        edges.remove(e.element());
+        unlink(edge);
 
         return element;
     }
@@ -227,7 +266,10 @@ public class GraphEdgeList<V, E> implements Graph<V, E> {
         MyVertex vertex = checkVertex(v);
 
         V oldElement = vertex.element;
+        vertices.remove(oldElement);
         vertex.element = newElement;
+        vertices.put(newElement, vertex);
+        events.vertexReplaced(vertex, oldElement);
 
         return oldElement;
     }
@@ -241,18 +283,62 @@ public class GraphEdgeList<V, E> implements Graph<V, E> {
         MyEdge edge = checkEdge(e);
 
         E oldElement = edge.element;
+        edges.remove(oldElement);
         edge.element = newElement;
+        edges.put(newElement, edge);
+        events.edgeReplaced(edge, oldElement);
 
         return oldElement;
     }
 
+    @SuppressWarnings("unchecked")
     private MyVertex vertexOf(V vElement) {
-        for (Vertex<V> v : vertices.values()) {
-            if (v.element().equals(vElement)) {
-                return (MyVertex) v;
-            }
-        }
-        return null;
+        return (MyVertex) vertices.get(vElement);
+    }
+
+    /**
+     * Stores an edge and registers it in the indexes of its vertices.
+     */
+    @SuppressWarnings("unchecked")
+    private MyEdge link(MyEdge edge) {
+        MyVertex u = (MyVertex) edge.vertexOutbound;
+        MyVertex v = (MyVertex) edge.vertexInbound;
+
+        edges.put(edge.element, edge);
+        u.incident.add(edge);
+        v.incident.add(edge);
+        u.adjacent.merge(v, 1, Integer::sum);
+        if (u != v) v.adjacent.merge(u, 1, Integer::sum);
+        events.edgeAdded(edge);
+
+        return edge;
+    }
+
+    /**
+     * Removes an edge and unregisters it from the indexes of its vertices.
+     */
+    @SuppressWarnings("unchecked")
+    private void unlink(MyEdge edge) {
+        MyVertex u = (MyVertex) edge.vertexOutbound;
+        MyVertex v = (MyVertex) edge.vertexInbound;
+
+        edges.remove(edge.element);
+        u.incident.remove(edge);
+        v.incident.remove(edge);
+        u.adjacent.computeIfPresent(v, (k, count) -> count == 1 ? null : count - 1);
+        if (u != v) v.adjacent.computeIfPresent(u, (k, count) -> count == 1 ? null : count - 1);
+        edgeIds.release(edge.id);
+        events.edgeRemoved(edge);
+    }
+
+    @Override
+    public void addGraphListener(GraphListener<V, E> listener) {
+        events.addListener(listener);
+    }
+
+    @Override
+    public void removeGraphListener(GraphListener<V, E> listener) {
+        events.removeListener(listener);
     }
 
     private boolean existsVertexWith(V vElement) {
@@ -283,9 +369,16 @@ public class GraphEdgeList<V, E> implements Graph<V, E> {
     class MyVertex implements Vertex<V> {
 
         V element;
+        final int id;
+        /* incident edges, and number of edges to each adjacent vertex */
+        final Set<Edge<E, V>> incident;
+        final Map<MyVertex, Integer> adjacent;
 
         public MyVertex(V element) {
             this.element = element;
+            this.id = vertexIds.acquire();
+            this.incident = new HashSet<>();
+            this.adjacent = new HashMap<>();
         }
 
         @Override
@@ -293,6 +386,11 @@ public class GraphEdgeList<V, E> implements Graph<V, E> {
             return this.element;
         }
 
+        @Override
+        public int id() {
+            return this.id;
+        }
+
         @Override
         public String toString() {
             return "Vertex{" + element + '}';
@@ -302,11 +400,13 @@ public class GraphEdgeList<V, E> implements Graph<V, E> {
     class MyEdge implements Edge<E, V> {
 
         E element;
+        final int id;
         Vertex<V> vertexOutbound;
         Vertex<V> vertexInbound;
 
         public MyEdge(E element, Vertex<V> vertexOutbound, Vertex<V> vertexInbound) {
             this.element = element;
+            this.id = edgeIds.acquire();
             this.vertexOutbound = vertexOutbound;
             this.vertexInbound = vertexInbound;
         }
@@ -316,6 +416,11 @@ public class GraphEdgeList<V, E> implements Graph<V, E> {
             return this.element;
         }
 
+        @Override
+        public int id() {
+            return this.id;
+        }
+
         public boolean contains(Vertex<V> v) {
             return (vertexOutbound == v || vertexInbound == v);
         }
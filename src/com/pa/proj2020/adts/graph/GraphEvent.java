@@ -0,0 +1,111 @@
+package com.pa.proj2020.adts.graph;
+
+/**
+ * A change made to a {@link Graph}, as published to its {@link GraphListener}s.
+ * <br>
+ * Vertex events carry the affected vertex and edge events the affected edge.
+ * Replacement events also carry the element stored before the replacement.
+ *
+ * @param <V> Type of element stored at a vertex
+ * @param <E> Type of element stored at an edge
+ *
+ * @see GraphListener
+ */
+public final class GraphEvent<V, E> {
+
+    public enum Type {
+        VERTEX_ADDED, VERTEX_REMOVED, VERTEX_REPLACED, EDGE_ADDED, EDGE_REMOVED, EDGE_REPLACED
+    }
+
+    private final Type type;
+    private final Vertex<V> vertex;
+    private final Edge<E, V> edge;
+    private final Object oldElement;
+
+    private GraphEvent(Type type, Vertex<V> vertex, Edge<E, V> edge, Object oldElement) {
+        this.type = type;
+        this.vertex = vertex;
+        this.edge = edge;
+        this.oldElement = oldElement;
+    }
+
+    public static <V, E> GraphEvent<V, E> vertexAdded(Vertex<V> vertex) {
+        return new GraphEvent<>(Type.VERTEX_ADDED, vertex, null, null);
+    }
+
+    public static <V, E> GraphEvent<V, E> vertexRemoved(Vertex<V> vertex) {
+        return new GraphEvent<>(Type.VERTEX_REMOVED, vertex, null, null);
+    }
+
+    public static <V, E> GraphEvent<V, E> vertexReplaced(Vertex<V> vertex, V oldElement) {
+        return new GraphEvent<>(Type.VERTEX_REPLACED, vertex, null, oldElement);
+    }
+
+    public static <V, E> GraphEvent<V, E> edgeAdded(Edge<E, V> edge) {
+        return new GraphEvent<>(Type.EDGE_ADDED, null, edge, null);
+    }
+
+    public static <V, E> GraphEvent<V, E> edgeRemoved(Edge<E, V> edge) {
+        return new GraphEvent<>(Type.EDGE_REMOVED, null, edge, null);
+    }
+
+    public static <V, E> GraphEvent<V, E> edgeReplaced(Edge<E, V> edge, E oldElement) {
+        return new GraphEvent<>(Type.EDGE_REPLACED, null, edge, oldElement);
+    }
+
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * Returns if this event is about a vertex, rather than an edge
+     *
+     * @return true for vertex events, false for edge events
+     */
+    public boolean isVertexEvent() {
+        return vertex != null;
+    }
+
+    /**
+     * Returns the affected vertex
+     *
+     * @return the vertex, or null for edge events
+     */
+    public Vertex<V> vertex() {
+        return vertex;
+    }
+
+    /**
+     * Returns the affected edge
+     *
+     * @return the edge, or null for vertex events
+     */
+    public Edge<E, V> edge() {
+        return edge;
+    }
+
+    /**
+     * Returns the element stored at the vertex before a {@link Type#VERTEX_REPLACED} change
+     *
+     * @return the previous element, or null for other events
+     */
+    @SuppressWarnings("unchecked")
+    public V oldVertexElement() {
+        return type == Type.VERTEX_REPLACED ? (V) oldElement : null;
+    }
+
+    /**
+     * Returns the element stored at the edge before a {@link Type#EDGE_REPLACED} change
+     *
+     * @return the previous element, or null for other events
+     */
+    @SuppressWarnings("unchecked")
+    public E oldEdgeElement() {
+        return type == Type.EDGE_REPLACED ? (E) oldElement : null;
+    }
+
+    @Override
+    public String toString() {
+        return "GraphEvent{" + type + ", " + (vertex != null ? vertex : edge) + '}';
+    }
+}
@@ -0,0 +1,109 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the listeners of a graph and delivers its events, either one at a
+ * time or buffered into batches.
+ * <br>
+ * No event object is created while there are no listeners.
+ */
+final class GraphEventSupport<V, E> {
+
+    private final List<GraphListener<V, E>> listeners = new CopyOnWriteArrayList<>();
+    /* events of the open batch, or null when not batching */
+    private List<GraphEvent<V, E>> batch;
+
+    void addListener(GraphListener<V, E> listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    void removeListener(GraphListener<V, E> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts buffering events, unless a batch is already open
+     *
+     * @return true if a new batch was started
+     */
+    boolean beginBatch() {
+        if (batch != null) return false;
+        batch = new ArrayList<>();
+        return true;
+    }
+
+    /**
+     * Delivers the buffered events in a single call and stops buffering
+     */
+    void endBatch() {
+        List<GraphEvent<V, E>> events = batch;
+        batch = null;
+        if (events != null && !events.isEmpty()) deliver(Collections.unmodifiableList(events));
+    }
+
+    /**
+     * Drops the buffered events and stops buffering
+     */
+    void discardBatch() {
+        batch = null;
+    }
+
+    /**
+     * Returns the number of events buffered so far
+     *
+     * @return number of events, or 0 when not batching
+     */
+    int batchSize() {
+        return batch == null ? 0 : batch.size();
+    }
+
+    /**
+     * Drops the events buffered after the first <code>size</code> ones, keeping the batch open
+     */
+    void truncateBatch(int size) {
+        if (batch != null) batch.subList(size, batch.size()).clear();
+    }
+
+    void vertexAdded(Vertex<V> vertex) {
+        if (!listeners.isEmpty()) fire(GraphEvent.vertexAdded(vertex));
+    }
+
+    void vertexRemoved(Vertex<V> vertex) {
+        if (!listeners.isEmpty()) fire(GraphEvent.vertexRemoved(vertex));
+    }
+
+    void vertexReplaced(Vertex<V> vertex, V oldElement) {
+        if (!listeners.isEmpty()) fire(GraphEvent.vertexReplaced(vertex, oldElement));
+    }
+
+    void edgeAdded(Edge<E, V> edge) {
+        if (!listeners.isEmpty()) fire(GraphEvent.edgeAdded(edge));
+    }
+
+    void edgeRemoved(Edge<E, V> edge) {
+        if (!listeners.isEmpty()) fire(GraphEvent.edgeRemoved(edge));
+    }
+
+    void edgeReplaced(Edge<E, V> edge, E oldElement) {
+        if (!listeners.isEmpty()) fire(GraphEvent.edgeReplaced(edge, oldElement));
+    }
+
+    private void fire(GraphEvent<V, E> event) {
+        if (batch != null) {
+            batch.add(event);
+        } else {
+            deliver(Collections.singletonList(event));
+        }
+    }
+
+    private void deliver(List<GraphEvent<V, E>> events) {
+        for (GraphListener<V, E> listener : listeners) {
+            listener.graphChanged(events);
+        }
+    }
+}
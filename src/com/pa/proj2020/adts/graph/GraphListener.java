@@ -0,0 +1,27 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.List;
+
+/**
+ * Receives the changes made to a {@link Graph}.
+ *
+ * @param <V> Type of element stored at a vertex
+ * @param <E> Type of element stored at an edge
+ *
+ * @see Graph#addGraphListener(GraphListener)
+ */
+@FunctionalInterface
+public interface GraphListener<V, E> {
+
+    /**
+     * Called after the graph changed, on the thread that changed it.
+     * <br>
+     * The events are listed in the order the changes were made. Changes made
+     * as a batch, e.g., inside a transaction, are delivered in a single call.
+     * Removing a vertex is reported as the removal of each of its edges,
+     * followed by the removal of the vertex.
+     *
+     * @param events read-only list of changes
+     */
+    void graphChanged(List<GraphEvent<V, E>> events);
+}
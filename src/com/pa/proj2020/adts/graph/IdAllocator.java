@@ -0,0 +1,86 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Hands out dense int ids starting at <code>0</code>, recycling released ids
+ * through a free list, so that the ids in use always stay below
+ * {@link #capacity()}.
+ */
+final class IdAllocator {
+
+    private int highWater;
+    private int[] free;
+    private int numFree;
+
+    IdAllocator() {
+        this.free = new int[8];
+    }
+
+    /**
+     * Returns an id that is not in use, preferring released ones
+     */
+    int acquire() {
+        return numFree > 0 ? free[--numFree] : highWater++;
+    }
+
+    /**
+     * Makes an id available again
+     */
+    void release(int id) {
+        if (numFree == free.length) {
+            free = Arrays.copyOf(free, numFree * 2);
+        }
+        free[numFree++] = id;
+    }
+
+    /**
+     * Returns an exclusive upper bound of every id handed out so far
+     */
+    int capacity() {
+        return highWater;
+    }
+
+    /**
+     * Returns a mark of the ids handed out so far, for {@link #acquiredSince(long)}
+     */
+    long mark() {
+        return ((long) highWater << 32) | numFree;
+    }
+
+    /**
+     * Returns the ids handed out since a mark was taken. No id may have been
+     * released since then. Only the recycled ids are copied; the new ones
+     * are kept as a range.
+     */
+    Acquired acquiredSince(long mark) {
+        int markNumFree = (int) mark;
+        int[] recycled = Arrays.copyOfRange(free, Math.min(numFree, markNumFree), markNumFree);
+        return new Acquired(recycled, (int) (mark >>> 32), highWater);
+    }
+
+    /**
+     * Ids handed out between a mark and a later point
+     */
+    static final class Acquired {
+
+        private final int[] recycled;
+        private final int from;
+        private final int to;
+
+        private Acquired(int[] recycled, int from, int to) {
+            this.recycled = recycled;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Performs the action for each id, recycled ids first
+         */
+        void forEach(IntConsumer action) {
+            for (int id : recycled) action.accept(id);
+            for (int id = from; id < to; id++) action.accept(id);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Connected components of a {@link Graph} kept up to date as it changes,
+ * ignoring edge directions.
+ * <br>
+ * The tracker listens to the graph and keeps a union-find forest over vertex
+ * ids: inserting a vertex or an edge costs near-constant time, and so do
+ * {@link #sameComponent(Vertex, Vertex)} and {@link #componentCount()}.
+ * Removing an edge may split a component, which union-find cannot undo, so
+ * it only marks the forest stale; the next query rebuilds it from the graph
+ * in O(V + E). Changes made inside a transaction reach the tracker only if
+ * the transaction commits.
+ * <br>
+ * Like the graph it tracks, the tracker is not thread-safe.
+ *
+ * @param <V> Type of element stored at a vertex
+ * @param <E> Type of element stored at an edge
+ */
+public final class IncrementalConnectivity<V, E> implements GraphListener<V, E> {
+
+    private final Graph<V, E> graph;
+
+    /* tracked vertices by id, and union-find forest by size with path halving */
+    private Vertex<V>[] vertices;
+    private int[] parent;
+    private int[] size;
+    private int count;
+    /* set when an edge was removed, until the next query rebuilds the forest */
+    private boolean stale;
+
+    @SuppressWarnings("unchecked")
+    private IncrementalConnectivity(Graph<V, E> graph) {
+        this.graph = graph;
+        this.vertices = (Vertex<V>[]) new Vertex<?>[0];
+        this.parent = new int[0];
+        this.size = new int[0];
+        rebuild();
+    }
+
+    /**
+     * Starts tracking the connected components of a graph
+     *
+     * @param graph graph to track
+     *
+     * @return tracker, registered as a listener of the graph
+     *
+     * @exception UnsupportedOperationException if the graph does not publish its changes
+     */
+    public static <V, E> IncrementalConnectivity<V, E> attach(Graph<V, E> graph) {
+        if (graph == null) throw new NullPointerException();
+        IncrementalConnectivity<V, E> tracker = new IncrementalConnectivity<>(graph);
+        graph.addGraphListener(tracker);
+        return tracker;
+    }
+
+    /**
+     * Stops tracking the graph
+     */
+    public void detach() {
+        graph.removeGraphListener(this);
+    }
+
+    /**
+     * Returns if two vertices are joined by a path, ignoring edge directions
+     *
+     * @param u first vertex
+     * @param v second vertex
+     *
+     * @return true if they are in the same component
+     *
+     * @exception InvalidVertexException if a vertex is not present in the graph
+     */
+    public boolean sameComponent(Vertex<V> u, Vertex<V> v) throws InvalidVertexException {
+        if (stale) rebuild();
+        return find(checkVertex(u)) == find(checkVertex(v));
+    }
+
+    /**
+     * Returns the number of connected components
+     *
+     * @return number of components, 0 for an empty graph
+     */
+    public int componentCount() {
+        if (stale) rebuild();
+        return count;
+    }
+
+    /**
+     * Returns the number of vertices in the component of a vertex
+     *
+     * @param v vertex
+     *
+     * @return size of its component
+     *
+     * @exception InvalidVertexException if the vertex is not present in the graph
+     */
+    public int componentSize(Vertex<V> v) throws InvalidVertexException {
+        if (stale) rebuild();
+        return size[find(checkVertex(v))];
+    }
+
+    @Override
+    public void graphChanged(List<GraphEvent<V, E>> events) {
+        /* a stale forest is rebuilt from the graph anyway */
+        if (stale) return;
+        for (GraphEvent<V, E> event : events) {
+            switch (event.type()) {
+                case VERTEX_ADDED:
+                    add(event.vertex());
+                    break;
+                case EDGE_ADDED:
+                    Vertex<V>[] ends = event.edge().vertices();
+                    union(ends[0].id(), ends[1].id());
+                    break;
+                case EDGE_REMOVED:
+                    stale = true;
+                    return;
+                case VERTEX_REMOVED:
+                    /* its edges were removed first, so the forest is stale unless it had none */
+                    vertices[event.vertex().id()] = null;
+                    count--;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private int checkVertex(Vertex<V> v) {
+        if (v == null) throw new InvalidVertexException("Null vertex.");
+        int id = v.id();
+        if (id < 0 || id >= vertices.length || vertices[id] != v) {
+            throw new InvalidVertexException("Vertex does not belong to this graph.");
+        }
+        return id;
+    }
+
+    private void rebuild() {
+        int capacity = graph.vertexIdCapacity();
+        vertices = Arrays.copyOf(vertices, Math.max(vertices.length, capacity));
+        Arrays.fill(vertices, null);
+        parent = Arrays.copyOf(parent, vertices.length);
+        size = Arrays.copyOf(size, vertices.length);
+        count = 0;
+        for (Vertex<V> v : graph.vertices()) add(v);
+        for (Edge<E, V> e : graph.edges()) {
+            Vertex<V>[] ends = e.vertices();
+            union(ends[0].id(), ends[1].id());
+        }
+        stale = false;
+    }
+
+    private void add(Vertex<V> v) {
+        int id = v.id();
+        if (id >= vertices.length) {
+            int length = Math.max(id + 1, vertices.length * 2);
+            vertices = Arrays.copyOf(vertices, length);
+            parent = Arrays.copyOf(parent, length);
+            size = Arrays.copyOf(size, length);
+        }
+        vertices[id] = v;
+        parent[id] = id;
+        size[id] = 1;
+        count++;
+    }
+
+    private int find(int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private void union(int u, int v) {
+        int a = find(u);
+        int b = find(v);
+        if (a == b) return;
+        if (size[a] < size[b]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        parent[b] = a;
+        size[a] += size[b];
+        count--;
+    }
+}
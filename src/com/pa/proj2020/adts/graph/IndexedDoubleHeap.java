@@ -0,0 +1,126 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of <code>int</code> ids keyed by <code>double</code>
+ * priorities, with decrease-key, kept in primitive arrays indexed by id.
+ * <br>
+ * {@link #clear()} is O(1): positions of ids that are no longer in the heap
+ * are recognized as stale rather than reset.
+ */
+final class IndexedDoubleHeap {
+
+    private int[] heap;
+    private double[] keys;
+    /* position of each id in the heap, only meaningful if heap[position] == id */
+    private int[] positions;
+    private int size;
+
+    IndexedDoubleHeap(int capacity) {
+        heap = new int[Math.max(16, capacity)];
+        keys = new double[heap.length];
+        positions = new int[heap.length];
+    }
+
+    /**
+     * Makes room for ids lower than <code>capacity</code>
+     */
+    void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int length = Math.max(capacity, keys.length * 2);
+            heap = Arrays.copyOf(heap, length);
+            keys = Arrays.copyOf(keys, length);
+            positions = Arrays.copyOf(positions, length);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    boolean contains(int id) {
+        int position = positions[id];
+        return position < size && heap[position] == id;
+    }
+
+    /**
+     * Returns the lowest key, or positive infinity if the heap is empty
+     */
+    double peekKey() {
+        return size == 0 ? Double.POSITIVE_INFINITY : keys[heap[0]];
+    }
+
+    /**
+     * Removes the id with the lowest key
+     *
+     * @return the id
+     */
+    int poll() {
+        int top = heap[0];
+        int last = heap[--size];
+        if (size > 0) {
+            heap[0] = last;
+            positions[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Adds an id, or lowers its key if it is already in the heap with a higher one
+     *
+     * @return true if the id was added or its key lowered
+     */
+    boolean offer(int id, double key) {
+        if (contains(id)) {
+            if (key >= keys[id]) return false;
+            keys[id] = key;
+            siftUp(positions[id]);
+            return true;
+        }
+        keys[id] = key;
+        heap[size] = id;
+        positions[id] = size;
+        siftUp(size++);
+        return true;
+    }
+
+    private void siftUp(int position) {
+        int id = heap[position];
+        double key = keys[id];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keys[heap[parent]] <= key) break;
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    private void siftDown(int position) {
+        int id = heap[position];
+        double key = keys[id];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) child++;
+            if (key <= keys[heap[child]]) break;
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+}
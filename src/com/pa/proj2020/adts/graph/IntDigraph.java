@@ -0,0 +1,284 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.Arrays;
+
+/**
+ * Directed graph over primitive int vertex and edge ids.
+ * <br>
+ * Ids are dense: they are handed out from <code>0</code> and the ids of removed
+ * vertices and edges are recycled, so side tables can be plain arrays of size
+ * {@link #vertexCapacity()} or {@link #edgeCapacity()}. Adjacency is kept in
+ * growable <code>int[]</code> arrays per vertex and every edge remembers its
+ * position in both arrays, so removing an edge is O(1) (swap with the last one).
+ * An open-addressing map from (outbound, inbound) pairs to edge ids makes
+ * {@link #findEdge(int, int)} O(1). Nothing is boxed.
+ * <br>
+ * Like {@link DigraphImpl}, at most one edge is allowed per ordered pair of
+ * vertices. Methods do not validate ids beyond what is documented; use
+ * {@link #isVertex(int)} and {@link #isEdge(int)} when in doubt.
+ *
+ * @see IntDigraphAdapter
+ */
+public class IntDigraph {
+
+    private static final int[] NO_EDGES = new int[0];
+
+    private boolean[] vertexLive;
+    private int[][] outEdges;
+    private int[][] inEdges;
+    private int[] outDegree;
+    private int[] inDegree;
+    private int vertexHighWater;
+    private int numVertices;
+    private int[] freeVertices;
+    private int numFreeVertices;
+
+    /* edge endpoints (-1 when the id is free) and positions in the adjacency arrays */
+    private int[] source;
+    private int[] target;
+    private int[] outPosition;
+    private int[] inPosition;
+    private int edgeHighWater;
+    private int numEdges;
+    private int[] freeEdges;
+    private int numFreeEdges;
+
+    private final LongIntHashMap pairs;
+
+    public IntDigraph() {
+        this(16, 16);
+    }
+
+    /**
+     * Creates an empty digraph sized for the expected number of vertices and edges
+     *
+     * @param expectedVertices expected number of vertices
+     * @param expectedEdges expected number of edges
+     */
+    public IntDigraph(int expectedVertices, int expectedEdges) {
+        int v = Math.max(1, expectedVertices);
+        int e = Math.max(1, expectedEdges);
+        vertexLive = new boolean[v];
+        outEdges = new int[v][];
+        inEdges = new int[v][];
+        outDegree = new int[v];
+        inDegree = new int[v];
+        freeVertices = new int[4];
+        source = new int[e];
+        target = new int[e];
+        outPosition = new int[e];
+        inPosition = new int[e];
+        freeEdges = new int[4];
+        pairs = new LongIntHashMap(e);
+    }
+
+    private static long pair(int out, int in) {
+        return ((long) out << 32) | (in & 0xffffffffL);
+    }
+
+    public int numVertices() {
+        return numVertices;
+    }
+
+    public int numEdges() {
+        return numEdges;
+    }
+
+    /**
+     * Returns an upper bound (exclusive) for every vertex id in use
+     *
+     * @return vertex id capacity
+     */
+    public int vertexCapacity() {
+        return vertexHighWater;
+    }
+
+    /**
+     * Returns an upper bound (exclusive) for every edge id in use
+     *
+     * @return edge id capacity
+     */
+    public int edgeCapacity() {
+        return edgeHighWater;
+    }
+
+    public boolean isVertex(int v) {
+        return v >= 0 && v < vertexHighWater && vertexLive[v];
+    }
+
+    public boolean isEdge(int e) {
+        return e >= 0 && e < edgeHighWater && source[e] >= 0;
+    }
+
+    /**
+     * Adds a vertex
+     *
+     * @return the id of the new vertex
+     */
+    public int addVertex() {
+        int v;
+        if (numFreeVertices > 0) {
+            v = freeVertices[--numFreeVertices];
+        } else {
+            v = vertexHighWater++;
+            if (v == vertexLive.length) {
+                int capacity = v * 2;
+                vertexLive = Arrays.copyOf(vertexLive, capacity);
+                outEdges = Arrays.copyOf(outEdges, capacity);
+                inEdges = Arrays.copyOf(inEdges, capacity);
+                outDegree = Arrays.copyOf(outDegree, capacity);
+                inDegree = Arrays.copyOf(inDegree, capacity);
+            }
+        }
+        vertexLive[v] = true;
+        outEdges[v] = NO_EDGES;
+        inEdges[v] = NO_EDGES;
+        outDegree[v] = 0;
+        inDegree[v] = 0;
+        numVertices++;
+        return v;
+    }
+
+    /**
+     * Removes a vertex and all of its edges
+     *
+     * @param v id of a live vertex
+     */
+    public void removeVertex(int v) {
+        while (outDegree[v] > 0) removeEdge(outEdges[v][outDegree[v] - 1]);
+        while (inDegree[v] > 0) removeEdge(inEdges[v][inDegree[v] - 1]);
+
+        vertexLive[v] = false;
+        outEdges[v] = null;
+        inEdges[v] = null;
+        if (numFreeVertices == freeVertices.length) {
+            freeVertices = Arrays.copyOf(freeVertices, numFreeVertices * 2);
+        }
+        freeVertices[numFreeVertices++] = v;
+        numVertices--;
+    }
+
+    /**
+     * Adds an edge <code>out --&gt; in</code>
+     *
+     * @param out id of a live vertex
+     * @param in id of a live vertex
+     *
+     * @return the id of the new edge, or -1 if the vertices are already adjacent
+     */
+    public int addEdge(int out, int in) {
+        long key = pair(out, in);
+        if (pairs.containsKey(key)) return -1;
+
+        int e;
+        if (numFreeEdges > 0) {
+            e = freeEdges[--numFreeEdges];
+        } else {
+            e = edgeHighWater++;
+            if (e == source.length) {
+                int capacity = e * 2;
+                source = Arrays.copyOf(source, capacity);
+                target = Arrays.copyOf(target, capacity);
+                outPosition = Arrays.copyOf(outPosition, capacity);
+                inPosition = Arrays.copyOf(inPosition, capacity);
+            }
+        }
+        source[e] = out;
+        target[e] = in;
+
+        if (outDegree[out] == outEdges[out].length) {
+            outEdges[out] = Arrays.copyOf(outEdges[out], Math.max(4, outDegree[out] * 2));
+        }
+        outPosition[e] = outDegree[out];
+        outEdges[out][outDegree[out]++] = e;
+
+        if (inDegree[in] == inEdges[in].length) {
+            inEdges[in] = Arrays.copyOf(inEdges[in], Math.max(4, inDegree[in] * 2));
+        }
+        inPosition[e] = inDegree[in];
+        inEdges[in][inDegree[in]++] = e;
+
+        pairs.put(key, e);
+        numEdges++;
+        return e;
+    }
+
+    /**
+     * Removes an edge
+     *
+     * @param e id of a live edge
+     */
+    public void removeEdge(int e) {
+        int out = source[e];
+        int in = target[e];
+
+        int last = outEdges[out][--outDegree[out]];
+        outEdges[out][outPosition[e]] = last;
+        outPosition[last] = outPosition[e];
+
+        last = inEdges[in][--inDegree[in]];
+        inEdges[in][inPosition[e]] = last;
+        inPosition[last] = inPosition[e];
+
+        pairs.remove(pair(out, in));
+        source[e] = -1;
+        target[e] = -1;
+        if (numFreeEdges == freeEdges.length) {
+            freeEdges = Arrays.copyOf(freeEdges, numFreeEdges * 2);
+        }
+        freeEdges[numFreeEdges++] = e;
+        numEdges--;
+    }
+
+    /**
+     * Returns the edge <code>out --&gt; in</code>
+     *
+     * @param out outbound vertex id
+     * @param in inbound vertex id
+     *
+     * @return the edge id, or -1 if the vertices are not adjacent
+     */
+    public int findEdge(int out, int in) {
+        return pairs.get(pair(out, in), -1);
+    }
+
+    public int source(int e) {
+        return source[e];
+    }
+
+    public int target(int e) {
+        return target[e];
+    }
+
+    public int outDegree(int v) {
+        return outDegree[v];
+    }
+
+    public int inDegree(int v) {
+        return inDegree[v];
+    }
+
+    /**
+     * Returns the <code>i</code>-th outbound edge of vertex <code>v</code>
+     *
+     * @param v vertex id
+     * @param i index between 0 and outDegree(v) - 1
+     *
+     * @return edge id
+     */
+    public int outEdge(int v, int i) {
+        return outEdges[v][i];
+    }
+
+    /**
+     * Returns the <code>i</code>-th inbound edge of vertex <code>v</code>
+     *
+     * @param v vertex id
+     * @param i index between 0 and inDegree(v) - 1
+     *
+     * @return edge id
+     */
+    public int inEdge(int v, int i) {
+        return inEdges[v][i];
+    }
+}
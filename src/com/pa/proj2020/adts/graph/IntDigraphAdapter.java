@@ -0,0 +1,535 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Exposes an {@link IntDigraph} as a {@link Digraph} of elements.
+ * <br>
+ * Every vertex element is identified by an int key, e.g.,
+ * <code>new IntDigraphAdapter&lt;User, Relation&gt;(User::getUserNumber)</code>.
+ * Elements are looked up through an open-addressing map from key to vertex id,
+ * so no element is hashed or boxed; two elements with the same key count as
+ * duplicates. Elements and handles are kept in arrays indexed by vertex and
+ * edge id, and hot paths can work on {@link #intDigraph()} directly, using
+ * {@link #idOf(Vertex)}, {@link #vertex(int)} and {@link #edge(int)} to cross
+ * between both worlds.
+ *
+ * @param <V> Type of element stored at a vertex
+ * @param <E> Type of element stored at an edge
+ */
+public class IntDigraphAdapter<V, E> implements Digraph<V, E> {
+
+    private final IntDigraph graph;
+    private final ToIntFunction<? super V> keyOf;
+    private final LongIntHashMap keyToVertex;
+
+    private MyVertex[] vertexHandles;
+    private MyEdge[] edgeHandles;
+
+    /**
+     * Creates an empty digraph
+     *
+     * @param keyOf gives the unique int key of a vertex element
+     */
+    public IntDigraphAdapter(ToIntFunction<? super V> keyOf) {
+        this(keyOf, 16, 16);
+    }
+
+    /**
+     * Creates an empty digraph sized for the expected number of vertices and edges
+     *
+     * @param keyOf gives the unique int key of a vertex element
+     * @param expectedVertices expected number of vertices
+     * @param expectedEdges expected number of edges
+     */
+    @SuppressWarnings("unchecked")
+    public IntDigraphAdapter(ToIntFunction<? super V> keyOf, int expectedVertices, int expectedEdges) {
+        this.graph = new IntDigraph(expectedVertices, expectedEdges);
+        this.keyOf = keyOf;
+        this.keyToVertex = new LongIntHashMap(expectedVertices);
+        this.vertexHandles = (MyVertex[]) new IntDigraphAdapter<?, ?>.MyVertex[Math.max(1, expectedVertices)];
+        this.edgeHandles = (MyEdge[]) new IntDigraphAdapter<?, ?>.MyEdge[Math.max(1, expectedEdges)];
+    }
+
+    /**
+     * Returns the underlying primitive digraph. It must not be modified directly.
+     *
+     * @return the primitive digraph
+     */
+    public IntDigraph intDigraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the id of a vertex in the primitive digraph
+     *
+     * @param v vertex
+     *
+     * @return vertex id
+     *
+     * @exception InvalidVertexException if the vertex is invalid for the digraph
+     */
+    public int idOf(Vertex<V> v) throws InvalidVertexException {
+        return checkVertex(v).id;
+    }
+
+    /**
+     * Returns the id of an edge in the primitive digraph
+     *
+     * @param e edge
+     *
+     * @return edge id
+     *
+     * @exception InvalidEdgeException if the edge is invalid for the digraph
+     */
+    public int idOf(Edge<E, V> e) throws InvalidEdgeException {
+        return checkEdge(e).id;
+    }
+
+    /**
+     * Returns the handle of a vertex id
+     *
+     * @param id vertex id
+     *
+     * @return the vertex, or null if the id is not in use
+     */
+    public Vertex<V> vertex(int id) {
+        return graph.isVertex(id) ? vertexHandles[id] : null;
+    }
+
+    /**
+     * Returns the handle of an edge id
+     *
+     * @param id edge id
+     *
+     * @return the edge, or null if the id is not in use
+     */
+    public Edge<E, V> edge(int id) {
+        return graph.isEdge(id) ? edgeHandles[id] : null;
+    }
+
+    /**
+     * Returns the vertex whose element has the given key
+     *
+     * @param key element key
+     *
+     * @return the vertex, or null if there is none
+     */
+    public Vertex<V> vertexWithKey(int key) {
+        int id = keyToVertex.get(key, -1);
+        return id < 0 ? null : vertexHandles[id];
+    }
+
+    @Override
+    public int numVertices() {
+        return graph.numVertices();
+    }
+
+    @Override
+    public int numEdges() {
+        return graph.numEdges();
+    }
+
+    @Override
+    public int vertexIdCapacity() {
+        return graph.vertexCapacity();
+    }
+
+    @Override
+    public int edgeIdCapacity() {
+        return graph.edgeCapacity();
+    }
+
+    @Override
+    public Collection<Vertex<V>> vertices() {
+        return new AbstractCollection<Vertex<V>>() {
+            @Override
+            public Iterator<Vertex<V>> iterator() {
+                return new HandleIterator<>(vertexHandles, graph.vertexCapacity());
+            }
+
+            @Override
+            public int size() {
+                return graph.numVertices();
+            }
+        };
+    }
+
+    @Override
+    public Collection<Edge<E, V>> edges() {
+        return new AbstractCollection<Edge<E, V>>() {
+            @Override
+            public Iterator<Edge<E, V>> iterator() {
+                return new HandleIterator<>(edgeHandles, graph.edgeCapacity());
+            }
+
+            @Override
+            public int size() {
+                return graph.numEdges();
+            }
+        };
+    }
+
+    @Override
+    public Collection<Edge<E, V>> incidentEdges(Vertex<V> inbound) throws InvalidVertexException {
+        List<Edge<E, V>> list = new ArrayList<>();
+        forEachIncident(inbound, list::add);
+        return list;
+    }
+
+    @Override
+    public Collection<Edge<E, V>> outboundEdges(Vertex<V> outbound) throws InvalidVertexException {
+        List<Edge<E, V>> list = new ArrayList<>();
+        forEachOutbound(outbound, list::add);
+        return list;
+    }
+
+    @Override
+    public void forEachIncident(Vertex<V> inbound, Consumer<? super Edge<E, V>> action) throws InvalidVertexException {
+        int v = checkVertex(inbound).id;
+        for (int i = 0; i < graph.inDegree(v); i++) {
+            action.accept(edgeHandles[graph.inEdge(v, i)]);
+        }
+    }
+
+    @Override
+    public void forEachOutbound(Vertex<V> outbound, Consumer<? super Edge<E, V>> action) throws InvalidVertexException {
+        int v = checkVertex(outbound).id;
+        for (int i = 0; i < graph.outDegree(v); i++) {
+            action.accept(edgeHandles[graph.outEdge(v, i)]);
+        }
+    }
+
+    @Override
+    public Vertex<V> opposite(Vertex<V> v, Edge<E, V> e) throws InvalidVertexException, InvalidEdgeException {
+        int vertex = checkVertex(v).id;
+        int edge = checkEdge(e).id;
+
+        if (graph.target(edge) == vertex) return vertexHandles[graph.source(edge)];
+        if (graph.source(edge) == vertex) return vertexHandles[graph.target(edge)];
+        return null;
+    }
+
+    @Override
+    public boolean areAdjacent(Vertex<V> outbound, Vertex<V> inbound) throws InvalidVertexException {
+        return graph.findEdge(checkVertex(outbound).id, checkVertex(inbound).id) >= 0;
+    }
+
+    @Override
+    public Vertex<V> insertVertex(V vElement) throws InvalidVertexException {
+        int key = keyOf.applyAsInt(vElement);
+        if (keyToVertex.containsKey(key)) {
+            throw new InvalidVertexException("There's already a vertex with this element.");
+        }
+
+        int id = graph.addVertex();
+        if (id >= vertexHandles.length) {
+            vertexHandles = Arrays.copyOf(vertexHandles, Math.max(id + 1, vertexHandles.length * 2));
+        }
+        MyVertex newVertex = new MyVertex(vElement, id);
+        vertexHandles[id] = newVertex;
+        keyToVertex.put(key, id);
+        return newVertex;
+    }
+
+    @Override
+    public Edge<E, V> insertEdge(Vertex<V> outbound, Vertex<V> inbound, E edgeElement)
+            throws InvalidVertexException, InvalidEdgeException {
+        return link(checkVertex(outbound), checkVertex(inbound), edgeElement);
+    }
+
+    @Override
+    public Edge<E, V> insertEdge(V outboundElement, V inboundElement, E edgeElement)
+            throws InvalidVertexException, InvalidEdgeException {
+        int out = keyToVertex.get(keyOf.applyAsInt(outboundElement), -1);
+        if (out < 0) {
+            throw new InvalidVertexException("No vertex contains " + outboundElement);
+        }
+        int in = keyToVertex.get(keyOf.applyAsInt(inboundElement), -1);
+        if (in < 0) {
+            throw new InvalidVertexException("No vertex contains " + inboundElement);
+        }
+
+        return link(vertexHandles[out], vertexHandles[in], edgeElement);
+    }
+
+    @Override
+    public Optional<Vertex<V>> findVertex(V vElement) {
+        int id = keyToVertex.get(keyOf.applyAsInt(vElement), -1);
+        return id < 0 ? Optional.empty() : Optional.of(vertexHandles[id]);
+    }
+
+    @Override
+    public boolean containsVertex(V vElement) {
+        return keyToVertex.containsKey(keyOf.applyAsInt(vElement));
+    }
+
+    @Override
+    public Optional<Edge<E, V>> findEdge(V outboundElement, V inboundElement) {
+        int out = keyToVertex.get(keyOf.applyAsInt(outboundElement), -1);
+        int in = keyToVertex.get(keyOf.applyAsInt(inboundElement), -1);
+        if (out < 0 || in < 0) return Optional.empty();
+
+        int e = graph.findEdge(out, in);
+        return e < 0 ? Optional.empty() : Optional.of(edgeHandles[e]);
+    }
+
+    @Override
+    public Optional<Edge<E, V>> tryInsertEdge(V outboundElement, V inboundElement, E edgeElement) {
+        int out = keyToVertex.get(keyOf.applyAsInt(outboundElement), -1);
+        int in = keyToVertex.get(keyOf.applyAsInt(inboundElement), -1);
+        if (out < 0 || in < 0 || graph.findEdge(out, in) >= 0) return Optional.empty();
+
+        return Optional.of(link(vertexHandles[out], vertexHandles[in], edgeElement));
+    }
+
+    private Edge<E, V> link(MyVertex outVertex, MyVertex inVertex, E edgeElement) {
+        int id = graph.addEdge(outVertex.id, inVertex.id);
+        if (id < 0) {
+            throw new InvalidEdgeException("There's already an edge with this vertixes.");
+        }
+
+        if (id >= edgeHandles.length) {
+            edgeHandles = Arrays.copyOf(edgeHandles, Math.max(id + 1, edgeHandles.length * 2));
+        }
+        MyEdge newEdge = new MyEdge(edgeElement, id);
+        edgeHandles[id] = newEdge;
+        return newEdge;
+    }
+
+    @Override
+    public V removeVertex(Vertex<V> v) throws InvalidVertexException {
+        MyVertex vertex = checkVertex(v);
+        int id = vertex.id;
+
+        while (graph.outDegree(id) > 0) unlink(graph.outEdge(id, 0));
+        while (graph.inDegree(id) > 0) unlink(graph.inEdge(id, 0));
+
+        graph.removeVertex(id);
+        keyToVertex.remove(keyOf.applyAsInt(vertex.element));
+        vertexHandles[id] = null;
+        return vertex.element;
+    }
+
+    @Override
+    public E removeEdge(Edge<E, V> e) throws InvalidEdgeException {
+        MyEdge edge = checkEdge(e);
+        unlink(edge.id);
+        return edge.element;
+    }
+
+    private void unlink(int id) {
+        graph.removeEdge(id);
+        edgeHandles[id] = null;
+    }
+
+    @Override
+    public V replace(Vertex<V> v, V newElement) throws InvalidVertexException {
+        MyVertex vertex = checkVertex(v);
+        int oldKey = keyOf.applyAsInt(vertex.element);
+        int newKey = keyOf.applyAsInt(newElement);
+        if (newKey != oldKey && keyToVertex.containsKey(newKey)) {
+            throw new InvalidVertexException("There's already a vertex with this element.");
+        }
+
+        keyToVertex.remove(oldKey);
+        keyToVertex.put(newKey, vertex.id);
+        V oldElement = vertex.element;
+        vertex.element = newElement;
+        return oldElement;
+    }
+
+    @Override
+    public E replace(Edge<E, V> e, E newElement) throws InvalidEdgeException {
+        MyEdge edge = checkEdge(e);
+        for (int id = 0; id < graph.edgeCapacity(); id++) {
+            if (id != edge.id && graph.isEdge(id) && edgeHandles[id].element == newElement) {
+                throw new InvalidEdgeException("There's already an edge with this element.");
+            }
+        }
+
+        E oldElement = edge.element;
+        edge.element = newElement;
+        return oldElement;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(
+                String.format("Digraph with %d vertices and %d edges:\n", numVertices(), numEdges())
+        );
+
+        sb.append("--- Vertices: \n");
+        for (Vertex<V> v : vertices()) {
+            sb.append("\t").append(v.toString()).append("\n");
+        }
+        sb.append("\n--- Edges: \n");
+        for (Edge<E, V> e : edges()) {
+            sb.append("\t").append(e.toString()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    class MyVertex implements Vertex<V> {
+
+        V element;
+        final int id;
+
+        public MyVertex(V element, int id) {
+            this.element = element;
+            this.id = id;
+        }
+
+        @Override
+        public V element() {
+            return this.element;
+        }
+
+        @Override
+        public int id() {
+            return this.id;
+        }
+
+        @Override
+        public String toString() {
+            return "Vertex{" + element + '}';
+        }
+    }
+
+    class MyEdge implements Edge<E, V> {
+
+        E element;
+        final int id;
+
+        public MyEdge(E element, int id) {
+            this.element = element;
+            this.id = id;
+        }
+
+        @Override
+        public E element() {
+            return this.element;
+        }
+
+        @Override
+        public int id() {
+            return this.id;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Vertex<V>[] vertices() {
+            Vertex<V>[] vertices = (Vertex<V>[]) new Vertex<?>[2];
+            vertices[0] = vertexHandles[graph.source(id)];
+            vertices[1] = vertexHandles[graph.target(id)];
+
+            return vertices;
+        }
+
+        @Override
+        public String toString() {
+            Vertex<V>[] ends = vertices();
+            return "Edge{{" + element + "}, vertexOutbound=" + ends[0].toString()
+                    + ", vertexInbound=" + ends[1].toString() + '}';
+        }
+    }
+
+    /**
+     * Checks whether a given vertex is valid and belongs to this graph
+     *
+     * @param v vertex to check
+     *
+     * @return the vertex
+     *
+     * @throws InvalidVertexException if the vertex is null, foreign or removed
+     */
+    @SuppressWarnings("unchecked")
+    private MyVertex checkVertex(Vertex<V> v) throws InvalidVertexException {
+        if (v == null) throw new InvalidVertexException("Null vertex.");
+
+        MyVertex vertex;
+        try {
+            vertex = (MyVertex) v;
+        } catch (ClassCastException e) {
+            throw new InvalidVertexException("Not a vertex.");
+        }
+
+        if (vertex.id >= vertexHandles.length || vertexHandles[vertex.id] != vertex) {
+            throw new InvalidVertexException("Vertex does not belong to this graph.");
+        }
+
+        return vertex;
+    }
+
+    /**
+     * Checks whether a given edge is valid and belongs to this graph
+     *
+     * @param e edge to check
+     *
+     * @return the edge
+     *
+     * @throws InvalidEdgeException if the edge is null, foreign or removed
+     */
+    private MyEdge checkEdge(Edge<E, V> e) throws InvalidEdgeException {
+        if (e == null) throw new InvalidEdgeException("Null edge.");
+
+        MyEdge edge;
+        try {
+            edge = (MyEdge) e;
+        } catch (ClassCastException ex) {
+            throw new InvalidEdgeException("Not an edge.");
+        }
+
+        if (edge.id >= edgeHandles.length || edgeHandles[edge.id] != edge) {
+            throw new InvalidEdgeException("Edge does not belong to this graph.");
+        }
+
+        return edge;
+    }
+
+    /**
+     * Iterates the non-null handles of an array
+     */
+    private static final class HandleIterator<T> implements Iterator<T> {
+
+        private final Object[] handles;
+        private final int end;
+        private int next;
+
+        HandleIterator(Object[] handles, int end) {
+            this.handles = handles;
+            this.end = Math.min(end, handles.length);
+            this.next = -1;
+            advance();
+        }
+
+        private void advance() {
+            do {
+                next++;
+            } while (next < end && handles[next] == null);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            T value = (T) handles[next];
+            advance();
+            return value;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive <code>long</code> keys to <code>int</code>
+ * values, with linear probing and backward-shift deletion, so that lookups
+ * neither box nor allocate.
+ * <br>
+ * The key {@link Long#MIN_VALUE} is reserved to mark empty slots.
+ */
+final class LongIntHashMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    LongIntHashMap() {
+        this(16);
+    }
+
+    LongIntHashMap(int expectedSize) {
+        allocate(tableSize(expectedSize));
+    }
+
+    private static int tableSize(int expectedSize) {
+        return Integer.highestOneBit(Math.max(8, (int) (expectedSize / 0.5f)) - 1) << 1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value bound to <code>key</code>, or <code>missing</code> if there is none
+     */
+    int get(long key, int missing) {
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+            if (keys[i] == EMPTY) return missing;
+        }
+    }
+
+    boolean containsKey(long key) {
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) return true;
+            if (keys[i] == EMPTY) return false;
+        }
+    }
+
+    /**
+     * Binds <code>key</code> to <code>value</code>, replacing any previous binding
+     */
+    void put(long key, int value) {
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > (mask + 1) / 2) rehash(keys.length * 2);
+    }
+
+    /**
+     * Removes the binding of <code>key</code>
+     *
+     * @return true if there was a binding
+     */
+    boolean remove(long key) {
+        int i = hash(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) return false;
+            i = (i + 1) & mask;
+        }
+        size--;
+
+        /* shift back the following entries of the probe sequence into the hole */
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = EMPTY;
+        return true;
+    }
+
+    /**
+     * Makes room for <code>expectedSize</code> bindings in all, so that they can be put without rehashing
+     */
+    void ensureCapacity(int expectedSize) {
+        int capacity = tableSize(expectedSize);
+        if (capacity > keys.length) rehash(capacity);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = hash(oldKeys[i]) & mask;
+                while (keys[j] != EMPTY) j = (j + 1) & mask;
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
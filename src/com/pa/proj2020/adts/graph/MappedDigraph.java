@@ -0,0 +1,764 @@
+package com.pa.proj2020.adts.graph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * {@link Digraph} implementation whose topology lives off-heap, in two
+ * memory-mapped files, so that it can outgrow the Java heap and be reopened
+ * without parsing.
+ * <br>
+ * Vertices and edges are fixed-size int records identified by their slot in
+ * the respective file (<code>&lt;base&gt;.vtx</code> and <code>&lt;base&gt;.edg</code>).
+ * Each vertex record holds the heads of its outbound and inbound edge lists and
+ * each edge record links to the next and previous edges of both lists, so edges
+ * are inserted and removed in O(1) after the adjacency check. Only the elements
+ * (and an element-to-slot index) are kept on the heap, in plain arrays indexed
+ * by slot. Vertex and edge handles are lightweight objects created on demand.
+ * <br>
+ * Elements are not persisted: when reopening with {@link #open(Path, IntFunction, IntFunction)}
+ * the caller supplies them again by slot. The slot of a vertex or edge is its
+ * {@link Vertex#id()} or {@link Edge#id()}.
+ * <br>
+ * Each file is mapped as a single buffer, which limits a graph to roughly
+ * 130 million vertices and 65 million edges.
+ *
+ * @param <V> Type of element stored at a vertex
+ * @param <E> Type of element stored at an edge
+ */
+public class MappedDigraph<V, E> implements Digraph<V, E>, Closeable {
+
+    /* vertex record: first outbound edge, first inbound edge, status, generation */
+    private static final int V_OUT = 0, V_IN = 1;
+    private static final int VERTEX_INTS = 4;
+
+    /* edge record: endpoints, outbound list links, inbound list links, status, generation */
+    private static final int E_OUT = 0, E_IN = 1, E_NEXT_OUT = 2, E_PREV_OUT = 3, E_NEXT_IN = 4, E_PREV_IN = 5;
+    private static final int EDGE_INTS = 8;
+
+    private static final int NONE = -1;
+
+    private final Table vertexTable;
+    private final Table edgeTable;
+
+    private Object[] vertexElements;
+    private Object[] edgeElements;
+    private final Map<V, Integer> index;
+
+    /**
+     * Creates an empty digraph, overwriting any graph previously stored at <code>base</code>
+     *
+     * @param base path prefix of the files to create
+     * @param expectedVertices initial vertex capacity
+     * @param expectedEdges initial edge capacity
+     *
+     * @throws IOException if the files cannot be created or mapped
+     */
+    public MappedDigraph(Path base, int expectedVertices, int expectedEdges) throws IOException {
+        this.vertexTable = new Table(sibling(base, ".vtx"), VERTEX_INTS, VERTEX_INTS - 2, Math.max(16, expectedVertices), true);
+        this.edgeTable = new Table(sibling(base, ".edg"), EDGE_INTS, EDGE_INTS - 2, Math.max(16, expectedEdges), true);
+        this.vertexElements = new Object[vertexTable.capacity];
+        this.edgeElements = new Object[edgeTable.capacity];
+        this.index = new HashMap<>();
+    }
+
+    private MappedDigraph(Path base) throws IOException {
+        this.vertexTable = new Table(sibling(base, ".vtx"), VERTEX_INTS, VERTEX_INTS - 2, 0, false);
+        this.edgeTable = new Table(sibling(base, ".edg"), EDGE_INTS, EDGE_INTS - 2, 0, false);
+        this.vertexElements = new Object[vertexTable.capacity];
+        this.edgeElements = new Object[edgeTable.capacity];
+        this.index = new HashMap<>();
+    }
+
+    /**
+     * Reopens a digraph stored at <code>base</code>. The topology is mapped as-is;
+     * the elements are requested from the given functions for every live slot.
+     *
+     * @param base path prefix used when the digraph was created
+     * @param vertexElements supplies the element of each live vertex slot
+     * @param edgeElements supplies the element of each live edge slot
+     * @param <V> Type of element stored at a vertex
+     * @param <E> Type of element stored at an edge
+     *
+     * @return the reopened digraph
+     *
+     * @throws IOException if the files cannot be mapped or are not digraph files
+     */
+    public static <V, E> MappedDigraph<V, E> open(Path base, IntFunction<? extends V> vertexElements,
+                                                  IntFunction<? extends E> edgeElements) throws IOException {
+        MappedDigraph<V, E> digraph = new MappedDigraph<>(base);
+        for (int slot = 0; slot < digraph.vertexTable.highWater(); slot++) {
+            if (digraph.vertexTable.isLive(slot)) {
+                V element = vertexElements.apply(slot);
+                digraph.vertexElements[slot] = element;
+                digraph.index.put(element, slot);
+            }
+        }
+        for (int slot = 0; slot < digraph.edgeTable.highWater(); slot++) {
+            if (digraph.edgeTable.isLive(slot)) {
+                digraph.edgeElements[slot] = edgeElements.apply(slot);
+            }
+        }
+        return digraph;
+    }
+
+    private static Path sibling(Path base, String extension) {
+        Path parent = base.toAbsolutePath().getParent();
+        String name = base.getFileName() + extension;
+        return parent == null ? Paths.get(name) : parent.resolve(name);
+    }
+
+    /**
+     * Writes every pending change of the topology to the files
+     */
+    public void flush() {
+        vertexTable.buffer.force();
+        edgeTable.buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        vertexTable.channel.close();
+        edgeTable.channel.close();
+    }
+
+    @Override
+    public int numVertices() {
+        return vertexTable.count();
+    }
+
+    @Override
+    public int numEdges() {
+        return edgeTable.count();
+    }
+
+    @Override
+    public int vertexIdCapacity() {
+        return vertexTable.highWater();
+    }
+
+    @Override
+    public int edgeIdCapacity() {
+        return edgeTable.highWater();
+    }
+
+    @Override
+    public Collection<Vertex<V>> vertices() {
+        return new AbstractCollection<Vertex<V>>() {
+            @Override
+            public Iterator<Vertex<V>> iterator() {
+                return new SlotIterator<>(vertexTable, MappedDigraph.this::vertexAt);
+            }
+
+            @Override
+            public int size() {
+                return vertexTable.count();
+            }
+        };
+    }
+
+    @Override
+    public Collection<Edge<E, V>> edges() {
+        return new AbstractCollection<Edge<E, V>>() {
+            @Override
+            public Iterator<Edge<E, V>> iterator() {
+                return new SlotIterator<>(edgeTable, MappedDigraph.this::edgeAt);
+            }
+
+            @Override
+            public int size() {
+                return edgeTable.count();
+            }
+        };
+    }
+
+    @Override
+    public Collection<Edge<E, V>> incidentEdges(Vertex<V> inbound) throws InvalidVertexException {
+        List<Edge<E, V>> list = new ArrayList<>();
+        forEachIncident(inbound, list::add);
+        return list;
+    }
+
+    @Override
+    public Collection<Edge<E, V>> outboundEdges(Vertex<V> outbound) throws InvalidVertexException {
+        List<Edge<E, V>> list = new ArrayList<>();
+        forEachOutbound(outbound, list::add);
+        return list;
+    }
+
+    @Override
+    public void forEachIncident(Vertex<V> inbound, Consumer<? super Edge<E, V>> action) throws InvalidVertexException {
+        int v = checkVertex(inbound).slot;
+        for (int e = vertexTable.get(v, V_IN); e != NONE; e = edgeTable.get(e, E_NEXT_IN)) {
+            action.accept(edgeAt(e));
+        }
+    }
+
+    @Override
+    public void forEachOutbound(Vertex<V> outbound, Consumer<? super Edge<E, V>> action) throws InvalidVertexException {
+        int v = checkVertex(outbound).slot;
+        for (int e = vertexTable.get(v, V_OUT); e != NONE; e = edgeTable.get(e, E_NEXT_OUT)) {
+            action.accept(edgeAt(e));
+        }
+    }
+
+    @Override
+    public Vertex<V> opposite(Vertex<V> v, Edge<E, V> e) throws InvalidVertexException, InvalidEdgeException {
+        int vertex = checkVertex(v).slot;
+        int edge = checkEdge(e).slot;
+
+        if (edgeTable.get(edge, E_IN) == vertex) return vertexAt(edgeTable.get(edge, E_OUT));
+        if (edgeTable.get(edge, E_OUT) == vertex) return vertexAt(edgeTable.get(edge, E_IN));
+        return null;
+    }
+
+    @Override
+    public boolean areAdjacent(Vertex<V> outbound, Vertex<V> inbound) throws InvalidVertexException {
+        return findEdge(checkVertex(outbound).slot, checkVertex(inbound).slot) != NONE;
+    }
+
+    /**
+     * Walks the shorter of the two adjacency lists looking for an edge out --&gt; in
+     */
+    private int findEdge(int out, int in) {
+        int e = vertexTable.get(out, V_OUT);
+        int f = vertexTable.get(in, V_IN);
+        while (e != NONE && f != NONE) {
+            if (edgeTable.get(e, E_IN) == in) return e;
+            if (edgeTable.get(f, E_OUT) == out) return f;
+            e = edgeTable.get(e, E_NEXT_OUT);
+            f = edgeTable.get(f, E_NEXT_IN);
+        }
+        return NONE;
+    }
+
+    @Override
+    public Vertex<V> insertVertex(V vElement) throws InvalidVertexException {
+        if (index.containsKey(vElement)) {
+            throw new InvalidVertexException("There's already a vertex with this element.");
+        }
+
+        int slot = vertexTable.allocate();
+        vertexTable.set(slot, V_OUT, NONE);
+        vertexTable.set(slot, V_IN, NONE);
+        if (slot >= vertexElements.length) {
+            vertexElements = Arrays.copyOf(vertexElements, vertexTable.capacity);
+        }
+        vertexElements[slot] = vElement;
+        index.put(vElement, slot);
+        return vertexAt(slot);
+    }
+
+    @Override
+    public Edge<E, V> insertEdge(Vertex<V> outbound, Vertex<V> inbound, E edgeElement)
+            throws InvalidVertexException, InvalidEdgeException {
+        int out = checkVertex(outbound).slot;
+        int in = checkVertex(inbound).slot;
+
+        return link(out, in, edgeElement);
+    }
+
+    @Override
+    public Edge<E, V> insertEdge(V outboundElement, V inboundElement, E edgeElement)
+            throws InvalidVertexException, InvalidEdgeException {
+        Integer out = index.get(outboundElement);
+        if (out == null) {
+            throw new InvalidVertexException("No vertex contains " + outboundElement);
+        }
+        Integer in = index.get(inboundElement);
+        if (in == null) {
+            throw new InvalidVertexException("No vertex contains " + inboundElement);
+        }
+
+        return link(out, in, edgeElement);
+    }
+
+    @Override
+    public Optional<Vertex<V>> findVertex(V vElement) {
+        Integer slot = index.get(vElement);
+        return slot == null ? Optional.empty() : Optional.of(vertexAt(slot));
+    }
+
+    @Override
+    public boolean containsVertex(V vElement) {
+        return index.containsKey(vElement);
+    }
+
+    @Override
+    public Optional<Edge<E, V>> findEdge(V outboundElement, V inboundElement) {
+        Integer out = index.get(outboundElement);
+        Integer in = index.get(inboundElement);
+        if (out == null || in == null) return Optional.empty();
+
+        int e = findEdge(out, in);
+        return e == NONE ? Optional.empty() : Optional.of(edgeAt(e));
+    }
+
+    @Override
+    public Optional<Edge<E, V>> tryInsertEdge(V outboundElement, V inboundElement, E edgeElement) {
+        Integer out = index.get(outboundElement);
+        Integer in = index.get(inboundElement);
+        if (out == null || in == null || findEdge(out, in) != NONE) return Optional.empty();
+
+        return Optional.of(link(out, in, edgeElement));
+    }
+
+    private Edge<E, V> link(int out, int in, E edgeElement) {
+        if (findEdge(out, in) != NONE) {
+            throw new InvalidEdgeException("There's already an edge with this vertixes.");
+        }
+
+        int e = edgeTable.allocate();
+        int firstOut = vertexTable.get(out, V_OUT);
+        int firstIn = vertexTable.get(in, V_IN);
+        edgeTable.set(e, E_OUT, out);
+        edgeTable.set(e, E_IN, in);
+        edgeTable.set(e, E_PREV_OUT, NONE);
+        edgeTable.set(e, E_NEXT_OUT, firstOut);
+        edgeTable.set(e, E_PREV_IN, NONE);
+        edgeTable.set(e, E_NEXT_IN, firstIn);
+        if (firstOut != NONE) edgeTable.set(firstOut, E_PREV_OUT, e);
+        if (firstIn != NONE) edgeTable.set(firstIn, E_PREV_IN, e);
+        vertexTable.set(out, V_OUT, e);
+        vertexTable.set(in, V_IN, e);
+
+        if (e >= edgeElements.length) {
+            edgeElements = Arrays.copyOf(edgeElements, edgeTable.capacity);
+        }
+        edgeElements[e] = edgeElement;
+        return edgeAt(e);
+    }
+
+    private void unlink(int e) {
+        int out = edgeTable.get(e, E_OUT);
+        int in = edgeTable.get(e, E_IN);
+
+        int prev = edgeTable.get(e, E_PREV_OUT);
+        int next = edgeTable.get(e, E_NEXT_OUT);
+        if (prev == NONE) vertexTable.set(out, V_OUT, next); else edgeTable.set(prev, E_NEXT_OUT, next);
+        if (next != NONE) edgeTable.set(next, E_PREV_OUT, prev);
+
+        prev = edgeTable.get(e, E_PREV_IN);
+        next = edgeTable.get(e, E_NEXT_IN);
+        if (prev == NONE) vertexTable.set(in, V_IN, next); else edgeTable.set(prev, E_NEXT_IN, next);
+        if (next != NONE) edgeTable.set(next, E_PREV_IN, prev);
+
+        edgeElements[e] = null;
+        edgeTable.release(e);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V removeVertex(Vertex<V> v) throws InvalidVertexException {
+        int slot = checkVertex(v).slot;
+
+        while (vertexTable.get(slot, V_OUT) != NONE) {
+            unlink(vertexTable.get(slot, V_OUT));
+        }
+        while (vertexTable.get(slot, V_IN) != NONE) {
+            unlink(vertexTable.get(slot, V_IN));
+        }
+
+        V element = (V) vertexElements[slot];
+        index.remove(element);
+        vertexElements[slot] = null;
+        vertexTable.release(slot);
+        return element;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E removeEdge(Edge<E, V> e) throws InvalidEdgeException {
+        int slot = checkEdge(e).slot;
+        E element = (E) edgeElements[slot];
+        unlink(slot);
+        return element;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V replace(Vertex<V> v, V newElement) throws InvalidVertexException {
+        if (index.containsKey(newElement)) {
+            throw new InvalidVertexException("There's already a vertex with this element.");
+        }
+        int slot = checkVertex(v).slot;
+
+        V oldElement = (V) vertexElements[slot];
+        index.remove(oldElement);
+        index.put(newElement, slot);
+        vertexElements[slot] = newElement;
+        return oldElement;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E replace(Edge<E, V> e, E newElement) throws InvalidEdgeException {
+        int slot = checkEdge(e).slot;
+        for (int other = 0; other < edgeTable.highWater(); other++) {
+            if (other != slot && edgeTable.isLive(other) && edgeElements[other] == newElement) {
+                throw new InvalidEdgeException("There's already an edge with this element.");
+            }
+        }
+
+        E oldElement = (E) edgeElements[slot];
+        edgeElements[slot] = newElement;
+        return oldElement;
+    }
+
+    private MyVertex vertexAt(int slot) {
+        return new MyVertex(slot, vertexTable.generation(slot));
+    }
+
+    private MyEdge edgeAt(int slot) {
+        return new MyEdge(slot, edgeTable.generation(slot));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(
+                String.format("Digraph with %d vertices and %d edges:\n", numVertices(), numEdges())
+        );
+
+        sb.append("--- Vertices: \n");
+        for (Vertex<V> v : vertices()) {
+            sb.append("\t").append(v.toString()).append("\n");
+        }
+        sb.append("\n--- Edges: \n");
+        for (Edge<E, V> e : edges()) {
+            sb.append("\t").append(e.toString()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Handle of a vertex slot. Handles of the same live slot are equal; the
+     * generation tells apart handles of a slot that was freed and reused.
+     */
+    class MyVertex implements Vertex<V> {
+
+        final int slot;
+        final int generation;
+
+        MyVertex(int slot, int generation) {
+            this.slot = slot;
+            this.generation = generation;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V element() {
+            return (V) vertexElements[slot];
+        }
+
+        @Override
+        public int id() {
+            return slot;
+        }
+
+        MappedDigraph<V, E> owner() {
+            return MappedDigraph.this;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean equals(Object o) {
+            if (!(o instanceof MappedDigraph.MyVertex)) return false;
+            MyVertex other = (MyVertex) o;
+            return other.owner() == owner() && other.slot == slot && other.generation == generation;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * slot + generation;
+        }
+
+        @Override
+        public String toString() {
+            return "Vertex{" + element() + '}';
+        }
+    }
+
+    /**
+     * Handle of an edge slot, see {@link MyVertex}.
+     */
+    class MyEdge implements Edge<E, V> {
+
+        final int slot;
+        final int generation;
+
+        MyEdge(int slot, int generation) {
+            this.slot = slot;
+            this.generation = generation;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E element() {
+            return (E) edgeElements[slot];
+        }
+
+        @Override
+        public int id() {
+            return slot;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Vertex<V>[] vertices() {
+            Vertex<V>[] vertices = (Vertex<V>[]) new Vertex<?>[2];
+            vertices[0] = vertexAt(edgeTable.get(slot, E_OUT));
+            vertices[1] = vertexAt(edgeTable.get(slot, E_IN));
+
+            return vertices;
+        }
+
+        MappedDigraph<V, E> owner() {
+            return MappedDigraph.this;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean equals(Object o) {
+            if (!(o instanceof MappedDigraph.MyEdge)) return false;
+            MyEdge other = (MyEdge) o;
+            return other.owner() == owner() && other.slot == slot && other.generation == generation;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * slot + generation;
+        }
+
+        @Override
+        public String toString() {
+            Vertex<V>[] ends = vertices();
+            return "Edge{{" + element() + "}, vertexOutbound=" + ends[0].toString()
+                    + ", vertexInbound=" + ends[1].toString() + '}';
+        }
+    }
+
+    /**
+     * Checks whether a given vertex is valid and belongs to this graph
+     *
+     * @param v vertex to check
+     *
+     * @return the vertex
+     *
+     * @throws InvalidVertexException if the vertex is null, foreign or removed
+     */
+    @SuppressWarnings("unchecked")
+    private MyVertex checkVertex(Vertex<V> v) throws InvalidVertexException {
+        if (v == null) throw new InvalidVertexException("Null vertex.");
+
+        MyVertex vertex;
+        try {
+            vertex = (MyVertex) v;
+        } catch (ClassCastException e) {
+            throw new InvalidVertexException("Not a vertex.");
+        }
+
+        if (vertex.owner() != this || !vertexTable.isLive(vertex.slot)
+                || vertexTable.generation(vertex.slot) != vertex.generation) {
+            throw new InvalidVertexException("Vertex does not belong to this graph.");
+        }
+
+        return vertex;
+    }
+
+    /**
+     * Checks whether a given edge is valid and belongs to this graph
+     *
+     * @param e edge to check
+     *
+     * @return the edge
+     *
+     * @throws InvalidEdgeException if the edge is null, foreign or removed
+     */
+    private MyEdge checkEdge(Edge<E, V> e) throws InvalidEdgeException {
+        if (e == null) throw new InvalidEdgeException("Null edge.");
+
+        MyEdge edge;
+        try {
+            edge = (MyEdge) e;
+        } catch (ClassCastException ex) {
+            throw new InvalidEdgeException("Not an edge.");
+        }
+
+        if (edge.owner() != this || !edgeTable.isLive(edge.slot)
+                || edgeTable.generation(edge.slot) != edge.generation) {
+            throw new InvalidEdgeException("Edge does not belong to this graph.");
+        }
+
+        return edge;
+    }
+
+    /**
+     * A memory-mapped file of fixed-size int records with a free list.
+     * <br>
+     * The file starts with a header of {@value #HEADER_INTS} ints (magic number,
+     * capacity, high-water mark, live count and free list head). The last two ints
+     * of every record hold its status (live, or the next free slot) and a
+     * generation counter that is incremented whenever the slot is freed.
+     */
+    private static final class Table {
+
+        private static final int MAGIC = 0x50414447;
+        private static final int HEADER_INTS = 8;
+        private static final int H_MAGIC = 0, H_CAPACITY = 1, H_HIGH_WATER = 2, H_COUNT = 3, H_FREE = 4;
+        private static final int LIVE = -2;
+
+        final FileChannel channel;
+        final int recordInts;
+        final int statusField;
+        MappedByteBuffer buffer;
+        int capacity;
+
+        Table(Path file, int recordInts, int statusField, int capacity, boolean create) throws IOException {
+            this.recordInts = recordInts;
+            this.statusField = statusField;
+            if (create) {
+                this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                map(capacity);
+                buffer.putInt(H_MAGIC * 4, MAGIC);
+                buffer.putInt(H_CAPACITY * 4, capacity);
+                setHeader(H_HIGH_WATER, 0);
+                setHeader(H_COUNT, 0);
+                setHeader(H_FREE, NONE);
+            } else {
+                this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_INTS * 4);
+                if (buffer.getInt(H_MAGIC * 4) != MAGIC) {
+                    channel.close();
+                    throw new IOException("Not a digraph file: " + file);
+                }
+                map(buffer.getInt(H_CAPACITY * 4));
+            }
+        }
+
+        private void map(int newCapacity) throws IOException {
+            long size = (HEADER_INTS + (long) newCapacity * recordInts) * 4;
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Digraph file would exceed the maximum mapping size.");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(H_CAPACITY * 4, newCapacity);
+            capacity = newCapacity;
+        }
+
+        int get(int slot, int field) {
+            return buffer.getInt((HEADER_INTS + slot * recordInts + field) * 4);
+        }
+
+        void set(int slot, int field, int value) {
+            buffer.putInt((HEADER_INTS + slot * recordInts + field) * 4, value);
+        }
+
+        private int header(int field) {
+            return buffer.getInt(field * 4);
+        }
+
+        private void setHeader(int field, int value) {
+            buffer.putInt(field * 4, value);
+        }
+
+        int highWater() {
+            return header(H_HIGH_WATER);
+        }
+
+        int count() {
+            return header(H_COUNT);
+        }
+
+        boolean isLive(int slot) {
+            return slot >= 0 && slot < highWater() && get(slot, statusField) == LIVE;
+        }
+
+        int generation(int slot) {
+            return get(slot, statusField + 1);
+        }
+
+        int allocate() {
+            int slot = header(H_FREE);
+            if (slot != NONE) {
+                setHeader(H_FREE, get(slot, statusField));
+            } else {
+                slot = highWater();
+                if (slot == capacity) {
+                    try {
+                        map(capacity * 2);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                setHeader(H_HIGH_WATER, slot + 1);
+                set(slot, statusField + 1, 0);
+            }
+            set(slot, statusField, LIVE);
+            setHeader(H_COUNT, count() + 1);
+            return slot;
+        }
+
+        void release(int slot) {
+            set(slot, statusField, header(H_FREE));
+            set(slot, statusField + 1, generation(slot) + 1);
+            setHeader(H_FREE, slot);
+            setHeader(H_COUNT, count() - 1);
+        }
+    }
+
+    /**
+     * Iterates the live slots of a table, creating a handle for each
+     */
+    private static final class SlotIterator<T> implements Iterator<T> {
+
+        private final Table table;
+        private final IntFunction<T> handle;
+        private int next;
+
+        SlotIterator(Table table, IntFunction<T> handle) {
+            this.table = table;
+            this.handle = handle;
+            this.next = -1;
+            advance();
+        }
+
+        private void advance() {
+            do {
+                next++;
+            } while (next < table.highWater() && !table.isLive(next));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < table.highWater();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            T value = handle.apply(next);
+            advance();
+            return value;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * PageRank of the vertices of a {@link DigraphSnapshot}, as a measure of how
+ * influential each vertex is: a vertex ranks high when vertices that rank high
+ * point to it.
+ * <br>
+ * Ranks are computed by power iteration until the total change of the ranks
+ * in one iteration falls below the tolerance. Each iteration pulls ranks along
+ * the inbound adjacency of the snapshot, so every vertex is written by a single
+ * task and large digraphs are split into vertex ranges that run on the common
+ * fork/join pool. Partial sums are added in range order, so results do not
+ * depend on the number of threads.
+ * <br>
+ * A random surfer jumps to a vertex chosen by the personalization vector,
+ * uniform unless set, both when it teleports and when it reaches a vertex
+ * with no outbound edges.
+ *
+ * @param <V> Type of element stored at a vertex
+ */
+public final class PageRank<V> {
+
+    /* vertices per parallel task, and fewest vertices worth splitting */
+    private static final int RANGE = 4096;
+    private static final int PARALLEL_THRESHOLD = 2 * RANGE;
+
+    private final DigraphSnapshot<V, ?> snapshot;
+    private double damping = 0.85;
+    private double tolerance = 1e-9;
+    private int maxIterations = 100;
+    private boolean parallel = true;
+    /* teleport probability of each vertex, or null for uniform */
+    private double[] personalization;
+
+    private PageRank(DigraphSnapshot<V, ?> snapshot) {
+        if (snapshot == null) throw new NullPointerException();
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Creates a ranking of the current state of a digraph
+     *
+     * @param digraph digraph to rank, copied into a snapshot
+     *
+     * @return ranking with damping 0.85, tolerance 1e-9 and at most 100 iterations
+     */
+    public static <V> PageRank<V> of(Digraph<V, ?> digraph) {
+        return new PageRank<>(DigraphSnapshot.of(digraph));
+    }
+
+    /**
+     * Creates a ranking of a snapshot
+     *
+     * @param snapshot snapshot to rank
+     *
+     * @return ranking with damping 0.85, tolerance 1e-9 and at most 100 iterations
+     */
+    public static <V> PageRank<V> of(DigraphSnapshot<V, ?> snapshot) {
+        return new PageRank<>(snapshot);
+    }
+
+    /**
+     * Sets the probability of following an edge rather than teleporting
+     *
+     * @param damping damping factor, between 0 and 1
+     *
+     * @return this ranking
+     */
+    public PageRank<V> damping(double damping) {
+        if (!(damping >= 0 && damping <= 1)) throw new IllegalArgumentException("The damping must be between 0 and 1.");
+        this.damping = damping;
+        return this;
+    }
+
+    /**
+     * Sets the total change of the ranks below which they are considered converged
+     *
+     * @param tolerance sum of the absolute rank changes in one iteration
+     *
+     * @return this ranking
+     */
+    public PageRank<V> tolerance(double tolerance) {
+        if (!(tolerance >= 0)) throw new IllegalArgumentException("The tolerance must not be negative.");
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * Sets the number of iterations after which to stop even if not converged
+     *
+     * @param maxIterations maximum number of iterations
+     *
+     * @return this ranking
+     */
+    public PageRank<V> maxIterations(int maxIterations) {
+        if (maxIterations < 0) throw new IllegalArgumentException("The iterations must not be negative.");
+        this.maxIterations = maxIterations;
+        return this;
+    }
+
+    /**
+     * Sets if large digraphs are ranked on several threads
+     *
+     * @param parallel true to use the common fork/join pool
+     *
+     * @return this ranking
+     */
+    public PageRank<V> parallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Biases teleports towards some vertices, for example to rank vertices by
+     * their influence on a given user. Weights are normalized to sum to 1 and
+     * vertices without a weight are never teleported to.
+     *
+     * @param weights non-negative weight of each vertex, or null for uniform teleports
+     *
+     * @return this ranking
+     *
+     * @exception InvalidVertexException if a vertex is not part of the snapshot
+     */
+    public PageRank<V> personalization(Map<Vertex<V>, Double> weights) throws InvalidVertexException {
+        if (weights == null) {
+            this.personalization = null;
+            return this;
+        }
+        double[] teleport = new double[snapshot.numVertices()];
+        double total = 0;
+        for (Map.Entry<Vertex<V>, Double> entry : weights.entrySet()) {
+            int v = snapshot.idOf(entry.getKey());
+            if (v == -1) throw new InvalidVertexException("Vertex does not belong to this graph.");
+            double weight = entry.getValue();
+            if (!(weight >= 0)) throw new IllegalArgumentException("Personalization weights must not be negative.");
+            teleport[v] += weight;
+            total += weight;
+        }
+        if (!(total > 0 && total < Double.POSITIVE_INFINITY)) {
+            throw new IllegalArgumentException("Personalization weights must have a positive finite sum.");
+        }
+        for (int v = 0; v < teleport.length; v++) teleport[v] /= total;
+        this.personalization = teleport;
+        return this;
+    }
+
+    /**
+     * Computes the ranks
+     *
+     * @return ranks, summing to 1
+     */
+    public Result<V> run() {
+        int n = snapshot.numVertices();
+        double[] teleport = personalization;
+        double uniform = n == 0 ? 0 : 1.0 / n;
+
+        double[] rank = new double[n];
+        double[] next = new double[n];
+        /* rank each vertex passes along every outbound edge */
+        double[] share = new double[n];
+        for (int v = 0; v < n; v++) rank[v] = teleport == null ? uniform : teleport[v];
+
+        int iterations = 0;
+        boolean converged = n == 0;
+        while (!converged && iterations < maxIterations) {
+            double[] current = rank;
+            double[] updated = next;
+            double dangling = sumOverRanges(n, (from, to) -> {
+                double lost = 0;
+                for (int v = from; v < to; v++) {
+                    int degree = snapshot.outDegree(v);
+                    if (degree == 0) {
+                        lost += current[v];
+                        share[v] = 0;
+                    } else {
+                        share[v] = current[v] / degree;
+                    }
+                }
+                return lost;
+            });
+
+            /* teleports plus the rank of dangling vertices, spread by the personalization */
+            double spread = 1 - damping + damping * dangling;
+            double change = sumOverRanges(n, (from, to) -> {
+                double delta = 0;
+                for (int v = from; v < to; v++) {
+                    double pulled = 0;
+                    for (int i = snapshot.inStart(v), end = snapshot.inEnd(v); i < end; i++) {
+                        pulled += share[snapshot.inSource(i)];
+                    }
+                    double value = spread * (teleport == null ? uniform : teleport[v]) + damping * pulled;
+                    updated[v] = value;
+                    delta += Math.abs(value - current[v]);
+                }
+                return delta;
+            });
+
+            rank = updated;
+            next = current;
+            iterations++;
+            converged = change < tolerance;
+        }
+        return new Result<>(snapshot, rank, iterations, converged);
+    }
+
+    @FunctionalInterface
+    private interface RangeSum {
+        double apply(int from, int to);
+    }
+
+    /* applies a function to consecutive vertex ranges, possibly in parallel, and adds the results in order */
+    private double sumOverRanges(int n, RangeSum function) {
+        int ranges = (n + RANGE - 1) / RANGE;
+        double[] partial = new double[ranges];
+        IntStream stream = IntStream.range(0, ranges);
+        if (parallel && n >= PARALLEL_THRESHOLD) stream = stream.parallel();
+        stream.forEach(r -> partial[r] = function.apply(r * RANGE, Math.min(n, (r + 1) * RANGE)));
+        double sum = 0;
+        for (double p : partial) sum += p;
+        return sum;
+    }
+
+    /**
+     * Ranks computed by {@link PageRank#run()}
+     *
+     * @param <V> Type of element stored at a vertex
+     */
+    public static final class Result<V> {
+
+        private final DigraphSnapshot<V, ?> snapshot;
+        private final double[] ranks;
+        private final int iterations;
+        private final boolean converged;
+
+        private Result(DigraphSnapshot<V, ?> snapshot, double[] ranks, int iterations, boolean converged) {
+            this.snapshot = snapshot;
+            this.ranks = ranks;
+            this.iterations = iterations;
+            this.converged = converged;
+        }
+
+        /**
+         * Returns the rank of a vertex
+         *
+         * @param v vertex
+         *
+         * @return rank, between 0 and 1
+         *
+         * @exception InvalidVertexException if the vertex is not part of the snapshot
+         */
+        public double rank(Vertex<V> v) throws InvalidVertexException {
+            int id = snapshot.idOf(v);
+            if (id == -1) throw new InvalidVertexException("Vertex does not belong to this graph.");
+            return ranks[id];
+        }
+
+        /**
+         * Returns the ranks indexed by the vertex ids of the snapshot
+         *
+         * @return copy of the ranks
+         */
+        public double[] ranks() {
+            return Arrays.copyOf(ranks, ranks.length);
+        }
+
+        /**
+         * Returns the vertices with the highest ranks
+         *
+         * @param k number of vertices wanted
+         *
+         * @return at most k vertices, by decreasing rank
+         */
+        public List<Vertex<V>> top(int k) {
+            if (k < 0) throw new IllegalArgumentException("k must not be negative.");
+            k = Math.min(k, ranks.length);
+            List<Vertex<V>> top = new ArrayList<>(k);
+            if (k == 0) return top;
+
+            /* min-heap of the k best so far, whose root is the one to evict */
+            IndexedDoubleHeap best = new IndexedDoubleHeap(ranks.length);
+            for (int v = 0; v < ranks.length; v++) {
+                if (best.size() < k) {
+                    best.offer(v, ranks[v]);
+                } else if (ranks[v] > best.peekKey()) {
+                    best.poll();
+                    best.offer(v, ranks[v]);
+                }
+            }
+            while (!best.isEmpty()) top.add(snapshot.vertex(best.poll()));
+            Collections.reverse(top);
+            return top;
+        }
+
+        /**
+         * Returns the number of iterations run
+         *
+         * @return number of iterations
+         */
+        public int iterations() {
+            return iterations;
+        }
+
+        /**
+         * Returns if the ranks changed less than the tolerance in the last iteration
+         *
+         * @return true if converged, false if stopped by the iteration limit
+         */
+        public boolean converged() {
+            return converged;
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * {@link Digraph} implementation backed by persistent hash tries, which makes
+ * taking a snapshot O(1).
+ * <br>
+ * The vertex set, the edge set and the adjacency of every vertex are
+ * {@link PersistentMap}s. A mutation only copies the trie nodes on the path to
+ * the changed entries, so a snapshot and the digraph it was taken from share
+ * everything that was not changed afterwards: keeping a history of snapshots
+ * costs memory proportional to the changes between them, not to the size of
+ * the digraph.
+ * <br>
+ * Vertex and edge handles are immutable and shared between versions.
+ * Consequently, {@link #replace(Vertex, Object)} and
+ * {@link #replace(Edge, Object)} retire the given handle and create a new one
+ * (re-creating the incident edges in the case of a vertex); the old handle
+ * stays valid only in the snapshots taken before the replacement, and the new
+ * handle keeps the id of the old one.
+ * <br>
+ * Ids of removed vertices and edges are not recycled, because older
+ * snapshots may still be using them.
+ * <br>
+ * Vertex and edge elements must not be <i>null</i>.
+ *
+ * @param <V> Type of element stored at a vertex
+ * @param <E> Type of element stored at an edge
+ */
+public class PersistentDigraph<V, E> implements Digraph<V, E> {
+
+    private PersistentMap<V, MyVertex> vertices;
+    private PersistentMap<MyEdge, MyEdge> edges;
+    /* per vertex, its outbound edges keyed by inbound vertex, and vice-versa */
+    private PersistentMap<MyVertex, PersistentMap<MyVertex, MyEdge>> outbound;
+    private PersistentMap<MyVertex, PersistentMap<MyVertex, MyEdge>> inbound;
+    private int nextVertexId;
+    private int nextEdgeId;
+    /* version to return to on rollback, or null when there is no open transaction */
+    private PersistentDigraph<V, E> savepoint;
+
+    public PersistentDigraph() {
+        this(PersistentMap.empty(), PersistentMap.empty(), PersistentMap.empty(), PersistentMap.empty(), 0, 0);
+    }
+
+    private PersistentDigraph(PersistentMap<V, MyVertex> vertices,
+                              PersistentMap<MyEdge, MyEdge> edges,
+                              PersistentMap<MyVertex, PersistentMap<MyVertex, MyEdge>> outbound,
+                              PersistentMap<MyVertex, PersistentMap<MyVertex, MyEdge>> inbound,
+                              int nextVertexId, int nextEdgeId) {
+        this.vertices = vertices;
+        this.edges = edges;
+        this.outbound = outbound;
+        this.inbound = inbound;
+        this.nextVertexId = nextVertexId;
+        this.nextEdgeId = nextEdgeId;
+    }
+
+    /**
+     * Returns an independent copy of the current version of the digraph in O(1).
+     * <br>
+     * Changes made afterwards to either digraph are not visible in the other.
+     *
+     * @return the snapshot
+     */
+    public PersistentDigraph<V, E> snapshot() {
+        return new PersistentDigraph<>(vertices, edges, outbound, inbound, nextVertexId, nextEdgeId);
+    }
+
+    /**
+     * Starts a transaction. This only remembers the current version, in O(1).
+     *
+     * @exception IllegalStateException if a transaction is already open
+     */
+    @Override
+    public void begin() {
+        if (savepoint != null) throw new IllegalStateException("A transaction is already open.");
+        savepoint = snapshot();
+    }
+
+    @Override
+    public void commit() {
+        if (savepoint == null) throw new IllegalStateException("There is no open transaction.");
+        savepoint = null;
+    }
+
+    /**
+     * Returns to the version remembered by {@link #begin()}, in O(1).
+     *
+     * @exception IllegalStateException if there is no open transaction
+     */
+    @Override
+    public void rollback() {
+        if (savepoint == null) throw new IllegalStateException("There is no open transaction.");
+        vertices = savepoint.vertices;
+        edges = savepoint.edges;
+        outbound = savepoint.outbound;
+        inbound = savepoint.inbound;
+        nextVertexId = savepoint.nextVertexId;
+        nextEdgeId = savepoint.nextEdgeId;
+        savepoint = null;
+    }
+
+    @Override
+    public boolean inTransaction() {
+        return savepoint != null;
+    }
+
+    @Override
+    public int numVertices() {
+        return vertices.size();
+    }
+
+    @Override
+    public int numEdges() {
+        return edges.size();
+    }
+
+    @Override
+    public int vertexIdCapacity() {
+        return nextVertexId;
+    }
+
+    @Override
+    public int edgeIdCapacity() {
+        return nextEdgeId;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<Vertex<V>> vertices() {
+        return (Collection<Vertex<V>>) (Collection<?>) vertices.values();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<Edge<E, V>> edges() {
+        return (Collection<Edge<E, V>>) (Collection<?>) edges.values();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<Edge<E, V>> incidentEdges(Vertex<V> inbound) throws InvalidVertexException {
+        MyVertex v = checkVertex(inbound);
+        return (Collection<Edge<E, V>>) (Collection<?>) this.inbound.get(v).values();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<Edge<E, V>> outboundEdges(Vertex<V> outbound) throws InvalidVertexException {
+        MyVertex v = checkVertex(outbound);
+        return (Collection<Edge<E, V>>) (Collection<?>) this.outbound.get(v).values();
+    }
+
+    @Override
+    public Vertex<V> opposite(Vertex<V> v, Edge<E, V> e) throws InvalidVertexException, InvalidEdgeException {
+        checkVertex(v);
+        MyEdge edge = checkEdge(e);
+
+        if (edge.vertexInbound == v) return edge.vertexOutbound;
+        if (edge.vertexOutbound == v) return edge.vertexInbound;
+        return null;
+    }
+
+    @Override
+    public boolean areAdjacent(Vertex<V> outbound, Vertex<V> inbound) throws InvalidVertexException {
+        MyVertex out = checkVertex(outbound);
+        MyVertex in = checkVertex(inbound);
+
+        return this.outbound.get(out).containsKey(in);
+    }
+
+    @Override
+    public Vertex<V> insertVertex(V vElement) throws InvalidVertexException {
+        if (vElement == null) throw new InvalidVertexException("Null element.");
+        if (vertices.containsKey(vElement)) {
+            throw new InvalidVertexException("There's already a vertex with this element.");
+        }
+
+        MyVertex newVertex = new MyVertex(vElement, nextVertexId++);
+        addVertex(newVertex);
+        return newVertex;
+    }
+
+    @Override
+    public Edge<E, V> insertEdge(Vertex<V> outbound, Vertex<V> inbound, E edgeElement)
+            throws InvalidVertexException, InvalidEdgeException {
+        MyVertex outVertex = checkVertex(outbound);
+        MyVertex inVertex = checkVertex(inbound);
+
+        if (this.outbound.get(outVertex).containsKey(inVertex)) {
+            throw new InvalidEdgeException("There's already an edge with this vertixes.");
+        }
+        if (edgeElement == null) throw new InvalidEdgeException("Null element.");
+
+        MyEdge newEdge = new MyEdge(edgeElement, outVertex, inVertex, nextEdgeId++);
+        link(newEdge);
+        return newEdge;
+    }
+
+    @Override
+    public Edge<E, V> insertEdge(V outboundElement, V inboundElement, E edgeElement)
+            throws InvalidVertexException, InvalidEdgeException {
+        MyVertex outVertex = outboundElement == null ? null : vertices.get(outboundElement);
+        if (outVertex == null) {
+            throw new InvalidVertexException("No vertex contains " + outboundElement);
+        }
+        MyVertex inVertex = inboundElement == null ? null : vertices.get(inboundElement);
+        if (inVertex == null) {
+            throw new InvalidVertexException("No vertex contains " + inboundElement);
+        }
+
+        return insertEdge(outVertex, inVertex, edgeElement);
+    }
+
+    @Override
+    public Optional<Vertex<V>> findVertex(V vElement) {
+        if (vElement == null) return Optional.empty();
+        return Optional.ofNullable(vertices.get(vElement));
+    }
+
+    @Override
+    public boolean containsVertex(V vElement) {
+        return vElement != null && vertices.containsKey(vElement);
+    }
+
+    @Override
+    public Optional<Edge<E, V>> findEdge(V outboundElement, V inboundElement) {
+        MyVertex outVertex = outboundElement == null ? null : vertices.get(outboundElement);
+        MyVertex inVertex = inboundElement == null ? null : vertices.get(inboundElement);
+        if (outVertex == null || inVertex == null) return Optional.empty();
+
+        return Optional.ofNullable(outbound.get(outVertex).get(inVertex));
+    }
+
+    @Override
+    public Optional<Edge<E, V>> tryInsertEdge(V outboundElement, V inboundElement, E edgeElement) {
+        MyVertex outVertex = outboundElement == null ? null : vertices.get(outboundElement);
+        MyVertex inVertex = inboundElement == null ? null : vertices.get(inboundElement);
+        if (outVertex == null || inVertex == null || edgeElement == null
+                || outbound.get(outVertex).containsKey(inVertex)) {
+            return Optional.empty();
+        }
+
+        MyEdge newEdge = new MyEdge(edgeElement, outVertex, inVertex, nextEdgeId++);
+        link(newEdge);
+        return Optional.of(newEdge);
+    }
+
+    @Override
+    public V removeVertex(Vertex<V> v) throws InvalidVertexException {
+        MyVertex vertex = checkVertex(v);
+
+        for (MyEdge e : outbound.get(vertex).values()) {
+            unlink(e);
+        }
+        for (MyEdge e : inbound.get(vertex).values()) {
+            unlink(e);
+        }
+        vertices = vertices.remove(vertex.element);
+        outbound = outbound.remove(vertex);
+        inbound = inbound.remove(vertex);
+        return vertex.element;
+    }
+
+    @Override
+    public E removeEdge(Edge<E, V> e) throws InvalidEdgeException {
+        MyEdge edge = checkEdge(e);
+        unlink(edge);
+        return edge.element;
+    }
+
+    @Override
+    public V replace(Vertex<V> v, V newElement) throws InvalidVertexException {
+        if (newElement == null) throw new InvalidVertexException("Null element.");
+        if (vertices.containsKey(newElement)) {
+            throw new InvalidVertexException("There's already a vertex with this element.");
+        }
+        MyVertex vertex = checkVertex(v);
+
+        Collection<MyEdge> out = outbound.get(vertex).values();
+        Collection<MyEdge> in = inbound.get(vertex).values();
+        removeVertex(vertex);
+
+        MyVertex newVertex = new MyVertex(newElement, vertex.id);
+        addVertex(newVertex);
+        for (MyEdge e : out) {
+            MyVertex target = e.vertexInbound == vertex ? newVertex : e.vertexInbound;
+            link(new MyEdge(e.element, newVertex, target, e.id));
+        }
+        for (MyEdge e : in) {
+            /* loops were already re-created as outbound edges */
+            if (e.vertexOutbound != vertex) link(new MyEdge(e.element, e.vertexOutbound, newVertex, e.id));
+        }
+        return vertex.element;
+    }
+
+    @Override
+    public E replace(Edge<E, V> e, E newElement) throws InvalidEdgeException {
+        if (newElement == null) throw new InvalidEdgeException("Null element.");
+        MyEdge edge = checkEdge(e);
+        for (MyEdge other : edges.values()) {
+            if (other != edge && other.element == newElement) {
+                throw new InvalidEdgeException("There's already an edge with this element.");
+            }
+        }
+
+        unlink(edge);
+        link(new MyEdge(newElement, edge.vertexOutbound, edge.vertexInbound, edge.id));
+        return edge.element;
+    }
+
+    private void addVertex(MyVertex vertex) {
+        vertices = vertices.put(vertex.element, vertex);
+        outbound = outbound.put(vertex, PersistentMap.empty());
+        inbound = inbound.put(vertex, PersistentMap.empty());
+    }
+
+    private void link(MyEdge edge) {
+        MyVertex out = edge.vertexOutbound;
+        MyVertex in = edge.vertexInbound;
+        outbound = outbound.put(out, outbound.get(out).put(in, edge));
+        inbound = inbound.put(in, inbound.get(in).put(out, edge));
+        edges = edges.put(edge, edge);
+    }
+
+    private void unlink(MyEdge edge) {
+        MyVertex out = edge.vertexOutbound;
+        MyVertex in = edge.vertexInbound;
+        outbound = outbound.put(out, outbound.get(out).remove(in));
+        inbound = inbound.put(in, inbound.get(in).remove(out));
+        edges = edges.remove(edge);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(
+                String.format("Digraph with %d vertices and %d edges:\n", numVertices(), numEdges())
+        );
+
+        sb.append("--- Vertices: \n");
+        for (Vertex<V> v : vertices.values()) {
+            sb.append("\t").append(v.toString()).append("\n");
+        }
+        sb.append("\n--- Edges: \n");
+        for (Edge<E, V> e : edges.values()) {
+            sb.append("\t").append(e.toString()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    class MyVertex implements Vertex<V> {
+
+        final V element;
+        final int id;
+
+        public MyVertex(V element, int id) {
+            this.element = element;
+            this.id = id;
+        }
+
+        @Override
+        public V element() {
+            return this.element;
+        }
+
+        @Override
+        public int id() {
+            return this.id;
+        }
+
+        @Override
+        public String toString() {
+            return "Vertex{" + element + '}';
+        }
+    }
+
+    class MyEdge implements Edge<E, V> {
+
+        final E element;
+        final int id;
+        final MyVertex vertexOutbound;
+        final MyVertex vertexInbound;
+
+        public MyEdge(E element, MyVertex vertexOutbound, MyVertex vertexInbound, int id) {
+            this.element = element;
+            this.id = id;
+            this.vertexOutbound = vertexOutbound;
+            this.vertexInbound = vertexInbound;
+        }
+
+        @Override
+        public E element() {
+            return this.element;
+        }
+
+        @Override
+        public int id() {
+            return this.id;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Vertex<V>[] vertices() {
+            Vertex<V>[] vertices = (Vertex<V>[]) new Vertex<?>[2];
+            vertices[0] = vertexOutbound;
+            vertices[1] = vertexInbound;
+
+            return vertices;
+        }
+
+        @Override
+        public String toString() {
+            return "Edge{{" + element + "}, vertexOutbound=" + vertexOutbound.toString()
+                    + ", vertexInbound=" + vertexInbound.toString() + '}';
+        }
+    }
+
+    /**
+     * Checks whether a given vertex is valid and belongs to this version of the graph
+     *
+     * @param v vertex to check
+     *
+     * @return the vertex
+     *
+     * @throws InvalidVertexException if the vertex is null, foreign or removed
+     */
+    @SuppressWarnings("unchecked")
+    private MyVertex checkVertex(Vertex<V> v) throws InvalidVertexException {
+        if (v == null) throw new InvalidVertexException("Null vertex.");
+
+        MyVertex vertex;
+        try {
+            vertex = (MyVertex) v;
+        } catch (ClassCastException e) {
+            throw new InvalidVertexException("Not a vertex.");
+        }
+
+        if (vertices.get(vertex.element) != vertex) {
+            throw new InvalidVertexException("Vertex does not belong to this graph.");
+        }
+
+        return vertex;
+    }
+
+    /**
+     * Checks whether a given edge is valid and belongs to this version of the graph
+     *
+     * @param e edge to check
+     *
+     * @return the edge
+     *
+     * @throws InvalidEdgeException if the edge is null, foreign or removed
+     */
+    private MyEdge checkEdge(Edge<E, V> e) throws InvalidEdgeException {
+        if (e == null) throw new InvalidEdgeException("Null edge.");
+
+        MyEdge edge;
+        try {
+            edge = (MyEdge) e;
+        } catch (ClassCastException ex) {
+            throw new InvalidEdgeException("Not an edge.");
+        }
+
+        if (!edges.containsKey(edge)) {
+            throw new InvalidEdgeException("Edge does not belong to this graph.");
+        }
+
+        return edge;
+    }
+}
@@ -0,0 +1,346 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable hash map implemented as a hash array mapped trie (HAMT).
+ * <br>
+ * {@link #put(Object, Object)} and {@link #remove(Object)} never change the
+ * receiver: they return a new map that shares every trie node not on the path
+ * to the changed key, so each update costs O(log32 n) time and memory.
+ * <br>
+ * Keys and values must not be <i>null</i>.
+ *
+ * @param <K> Type of the keys
+ * @param <T> Type of the values
+ */
+final class PersistentMap<K, T> {
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, T> PersistentMap<K, T> empty() {
+        return (PersistentMap<K, T>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(K key) {
+        return root == null ? null : (T) root.get(key, hash(key), 0);
+    }
+
+    boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map with <code>key</code> bound to <code>value</code>
+     *
+     * @param key   key to bind
+     * @param value value to bind
+     *
+     * @return the new map, or this map if the binding already existed
+     */
+    PersistentMap<K, T> put(K key, T value) {
+        boolean[] added = new boolean[1];
+        Node start = root == null ? BitmapNode.EMPTY : root;
+        Node newRoot = start.put(key, value, hash(key), 0, added);
+        if (newRoot == root) return this;
+        return new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without <code>key</code>
+     *
+     * @param key key to remove
+     *
+     * @return the new map, or this map if the key was not present
+     */
+    PersistentMap<K, T> remove(K key) {
+        if (root == null) return this;
+        Node newRoot = root.remove(key, hash(key), 0);
+        if (newRoot == root) return this;
+        return newRoot == null ? empty() : new PersistentMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Returns the values of the map as a read-only collection
+     *
+     * @return collection of values
+     */
+    Collection<T> values() {
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new ValueIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static Node createNode(int shift, Object key1, Object value1,
+                                   int hash2, Object key2, Object value2) {
+        int hash1 = hash(key1);
+        if (hash1 == hash2) {
+            return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+        }
+        boolean[] added = new boolean[1];
+        return BitmapNode.EMPTY
+                .put(key1, value1, hash1, shift, added)
+                .put(key2, value2, hash2, shift, added);
+    }
+
+    private abstract static class Node {
+
+        abstract Object get(Object key, int hash, int shift);
+
+        abstract Node put(Object key, Object value, int hash, int shift, boolean[] added);
+
+        /* returns null when the node becomes empty */
+        abstract Node remove(Object key, int hash, int shift);
+
+        /* key/value pairs; a null key means the value is a child node */
+        abstract Object[] array();
+    }
+
+    private static final class BitmapNode extends Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & 31);
+            if ((bitmap & bit) == 0) return null;
+
+            int i = index(bit);
+            Object k = array[2 * i];
+            Object v = array[2 * i + 1];
+            if (k == null) return ((Node) v).get(key, hash, shift + 5);
+            return key.equals(k) ? v : null;
+        }
+
+        @Override
+        Node put(Object key, Object value, int hash, int shift, boolean[] added) {
+            int bit = 1 << ((hash >>> shift) & 31);
+            int i = index(bit);
+
+            if ((bitmap & bit) != 0) {
+                Object k = array[2 * i];
+                Object v = array[2 * i + 1];
+                if (k == null) {
+                    Node child = ((Node) v).put(key, value, hash, shift + 5, added);
+                    return child == v ? this : with(2 * i + 1, child);
+                }
+                if (key.equals(k)) {
+                    return v == value ? this : with(2 * i + 1, value);
+                }
+                added[0] = true;
+                Node child = createNode(shift + 5, k, v, hash, key, value);
+                Object[] newArray = array.clone();
+                newArray[2 * i] = null;
+                newArray[2 * i + 1] = child;
+                return new BitmapNode(bitmap, newArray);
+            }
+
+            added[0] = true;
+            Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, 2 * i);
+            newArray[2 * i] = key;
+            newArray[2 * i + 1] = value;
+            System.arraycopy(array, 2 * i, newArray, 2 * i + 2, array.length - 2 * i);
+            return new BitmapNode(bitmap | bit, newArray);
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & 31);
+            if ((bitmap & bit) == 0) return this;
+
+            int i = index(bit);
+            Object k = array[2 * i];
+            Object v = array[2 * i + 1];
+            if (k == null) {
+                Node child = ((Node) v).remove(key, hash, shift + 5);
+                if (child == v) return this;
+                if (child != null) return with(2 * i + 1, child);
+            } else if (!key.equals(k)) {
+                return this;
+            }
+
+            if (bitmap == bit) return null;
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, 2 * i);
+            System.arraycopy(array, 2 * i + 2, newArray, 2 * i, newArray.length - 2 * i);
+            return new BitmapNode(bitmap ^ bit, newArray);
+        }
+
+        private BitmapNode with(int position, Object value) {
+            Object[] newArray = array.clone();
+            newArray[position] = value;
+            return new BitmapNode(bitmap, newArray);
+        }
+    }
+
+    private static final class CollisionNode extends Node {
+
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        private int find(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            int i = find(key);
+            return i < 0 ? null : array[i + 1];
+        }
+
+        @Override
+        Node put(Object key, Object value, int hash, int shift, boolean[] added) {
+            if (hash != this.hash) {
+                /* push this node one level down, next to the new key */
+                BitmapNode parent = new BitmapNode(1 << ((this.hash >>> shift) & 31), new Object[]{null, this});
+                return parent.put(key, value, hash, shift, added);
+            }
+
+            int i = find(key);
+            if (i >= 0) {
+                if (array[i + 1] == value) return this;
+                Object[] newArray = array.clone();
+                newArray[i + 1] = value;
+                return new CollisionNode(hash, newArray);
+            }
+
+            added[0] = true;
+            Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, array.length);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift) {
+            int i = find(key);
+            if (i < 0) return this;
+            if (array.length == 2) return null;
+
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, i);
+            System.arraycopy(array, i + 2, newArray, i, newArray.length - i);
+            return new CollisionNode(hash, newArray);
+        }
+    }
+
+    /**
+     * Depth-first iterator over the values stored in a trie
+     */
+    private static final class ValueIterator<T> implements Iterator<T> {
+
+        private final Deque<Object[]> arrays = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Object next;
+
+        ValueIterator(Node root) {
+            if (root != null) {
+                arrays.push(root.array());
+                positions.push(0);
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (!arrays.isEmpty()) {
+                Object[] array = arrays.peek();
+                int i = positions.pop();
+                if (i >= array.length) {
+                    arrays.pop();
+                    continue;
+                }
+                positions.push(i + 2);
+                if (array[i] == null) {
+                    arrays.push(((Node) array[i + 1]).array());
+                    positions.push(0);
+                } else {
+                    next = array[i + 1];
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (next == null) throw new NoSuchElementException();
+            T value = (T) next;
+            advance();
+            return value;
+        }
+    }
+}
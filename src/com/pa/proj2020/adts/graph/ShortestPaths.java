@@ -0,0 +1,316 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Point-to-point shortest paths in a {@link Digraph}, by number of edges or
+ * by edge length.
+ * <br>
+ * Both kinds of query search from the source along outbound edges and from
+ * the target along inbound edges at the same time, and stop as soon as the
+ * two searches prove they met on a shortest path. This explores a small part
+ * of what a one-sided search would, on graphs where the number of vertices
+ * within a given distance grows quickly, such as social networks. Hop
+ * queries use breadth-first search; length queries use Dijkstra's algorithm
+ * with a primitive indexed heap, and need non-negative lengths.
+ * <br>
+ * The search state lives in arrays indexed by vertex id that are reused from
+ * one query to the next, so a query only touches the vertices it explores.
+ * An instance must not be used by several threads at once, nor while the
+ * digraph is changed.
+ *
+ * @param <V> Type of element stored at a vertex
+ * @param <E> Type of element stored at an edge
+ */
+public final class ShortestPaths<V, E> {
+
+    private final Digraph<V, E> digraph;
+    private final ToDoubleFunction<? super Edge<E, V>> length;
+
+    /* vertices by id, filled in as the searches reach them */
+    private Vertex<V>[] vertices;
+    private final Search forward = new Search(true);
+    private final Search backward = new Search(false);
+    /* stamp of the current query in Search.seen */
+    private int query;
+
+    /* the searches met at meetForward --> meetBackward, or at a single vertex if they are equal */
+    private int meetForward;
+    private int meetBackward;
+
+    /**
+     * Creates a path service that measures edges by their {@link Digraph#weight(Edge) weight}
+     *
+     * @param digraph digraph to search
+     */
+    public ShortestPaths(Digraph<V, E> digraph) {
+        this(digraph, digraph::weight);
+    }
+
+    /**
+     * Creates a path service that measures edges with a given function
+     *
+     * @param digraph digraph to search
+     * @param length non-negative length of each edge
+     */
+    @SuppressWarnings("unchecked")
+    public ShortestPaths(Digraph<V, E> digraph, ToDoubleFunction<? super Edge<E, V>> length) {
+        if (digraph == null || length == null) throw new NullPointerException();
+        this.digraph = digraph;
+        this.length = length;
+        this.vertices = (Vertex<V>[]) new Vertex<?>[0];
+    }
+
+    /**
+     * Returns the least number of edges on a path from the source to the target
+     *
+     * @param source Source Vertex
+     * @param target Target Vertex
+     *
+     * @return number of edges, or -1 if the target cannot be reached
+     *
+     * @exception InvalidVertexException if a vertex is not present in the digraph
+     */
+    public int hopDistance(Vertex<V> source, Vertex<V> target) throws InvalidVertexException {
+        double hops = searchHops(source, target);
+        return hops == Double.POSITIVE_INFINITY ? -1 : (int) hops;
+    }
+
+    /**
+     * Returns a path from the source to the target with the least number of edges
+     *
+     * @param source Source Vertex
+     * @param target Target Vertex
+     *
+     * @return vertices of the path, from source to target, or an empty list
+     *         if the target cannot be reached
+     *
+     * @exception InvalidVertexException if a vertex is not present in the digraph
+     */
+    public List<Vertex<V>> hopPath(Vertex<V> source, Vertex<V> target) throws InvalidVertexException {
+        return searchHops(source, target) == Double.POSITIVE_INFINITY ? new ArrayList<>() : path();
+    }
+
+    /**
+     * Returns the length of a shortest path from the source to the target
+     *
+     * @param source Source Vertex
+     * @param target Target Vertex
+     *
+     * @return total length of the path, or positive infinity if the target
+     *         cannot be reached
+     *
+     * @exception InvalidVertexException if a vertex is not present in the digraph
+     * @exception IllegalArgumentException if an explored edge has a negative or NaN length
+     */
+    public double distance(Vertex<V> source, Vertex<V> target) throws InvalidVertexException {
+        return searchLengths(source, target);
+    }
+
+    /**
+     * Returns a shortest path from the source to the target
+     *
+     * @param source Source Vertex
+     * @param target Target Vertex
+     *
+     * @return vertices of the path, from source to target, or an empty list
+     *         if the target cannot be reached
+     *
+     * @exception InvalidVertexException if a vertex is not present in the digraph
+     * @exception IllegalArgumentException if an explored edge has a negative or NaN length
+     */
+    public List<Vertex<V>> path(Vertex<V> source, Vertex<V> target) throws InvalidVertexException {
+        return searchLengths(source, target) == Double.POSITIVE_INFINITY ? new ArrayList<>() : path();
+    }
+
+    private boolean begin(Vertex<V> source, Vertex<V> target) {
+        /* fail early on vertices that are not in the digraph */
+        digraph.outboundEdges(source);
+        digraph.incidentEdges(target);
+
+        int capacity = digraph.vertexIdCapacity();
+        if (vertices.length < capacity) vertices = Arrays.copyOf(vertices, capacity);
+        if (++query == Integer.MAX_VALUE) {
+            forward.resetStamps();
+            backward.resetStamps();
+            query = 1;
+        }
+        forward.begin(capacity, source);
+        backward.begin(capacity, target);
+        meetForward = meetBackward = source.id();
+        return source == target;
+    }
+
+    /**
+     * Bidirectional breadth-first search, one whole level at a time from the
+     * smaller frontier. Once a level finds an edge into the other search, the
+     * best such edge over the level closes a shortest path.
+     */
+    private double searchHops(Vertex<V> source, Vertex<V> target) {
+        if (begin(source, target)) return 0;
+
+        double best = Double.POSITIVE_INFINITY;
+        while (forward.hasFrontier() && backward.hasFrontier()) {
+            Search search = forward.frontierSize() <= backward.frontierSize() ? forward : backward;
+            search.best = best;
+            search.expandLevel();
+            best = search.best;
+            if (best < Double.POSITIVE_INFINITY) return best;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Bidirectional Dijkstra, settling the closer of the two heap tops each
+     * time, until the tops together are no shorter than the best path found
+     */
+    private double searchLengths(Vertex<V> source, Vertex<V> target) {
+        if (begin(source, target)) return 0;
+
+        double best = Double.POSITIVE_INFINITY;
+        while (!forward.heap.isEmpty() && !backward.heap.isEmpty()) {
+            double forwardTop = forward.heap.peekKey();
+            double backwardTop = backward.heap.peekKey();
+            if (forwardTop + backwardTop >= best) break;
+
+            Search search = forwardTop <= backwardTop ? forward : backward;
+            search.best = best;
+            search.settleNext();
+            best = search.best;
+        }
+        return best;
+    }
+
+    private List<Vertex<V>> path() {
+        List<Vertex<V>> path = new ArrayList<>();
+        for (int id = meetForward; id != -1; id = forward.parent[id]) path.add(vertices[id]);
+        Collections.reverse(path);
+        if (meetBackward != meetForward) {
+            for (int id = meetBackward; id != -1; id = backward.parent[id]) path.add(vertices[id]);
+        }
+        return path;
+    }
+
+    /**
+     * One side of a bidirectional search: from the source along outbound
+     * edges, or from the target along inbound edges
+     */
+    private final class Search {
+
+        private final boolean outbound;
+        private Search other;
+
+        /* per vertex id: query stamp when reached, distance and parent in this search */
+        int[] seen = new int[0];
+        double[] distances = new double[0];
+        int[] parent = new int[0];
+
+        /* breadth-first frontier */
+        private int[] queue = new int[0];
+        private int head;
+        private int tail;
+
+        final IndexedDoubleHeap heap = new IndexedDoubleHeap(0);
+
+        /* vertex being expanded and best path length found so far */
+        private int current;
+        double best;
+
+        private final Consumer<Edge<E, V>> stepHop = e -> relax(e, 1, false);
+        private final Consumer<Edge<E, V>> stepLength = e -> {
+            double l = length.applyAsDouble(e);
+            if (!(l >= 0)) throw new IllegalArgumentException("Edge lengths must not be negative: " + e);
+            relax(e, l, true);
+        };
+
+        Search(boolean outbound) {
+            this.outbound = outbound;
+        }
+
+        void begin(int capacity, Vertex<V> start) {
+            other = outbound ? backward : forward;
+            if (seen.length < capacity) {
+                seen = Arrays.copyOf(seen, capacity);
+                distances = Arrays.copyOf(distances, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                queue = Arrays.copyOf(queue, capacity);
+                heap.ensureCapacity(capacity);
+            }
+            head = tail = 0;
+            heap.clear();
+
+            int id = start.id();
+            vertices[id] = start;
+            seen[id] = query;
+            distances[id] = 0;
+            parent[id] = -1;
+            queue[tail++] = id;
+            heap.offer(id, 0);
+        }
+
+        void resetStamps() {
+            Arrays.fill(seen, 0);
+        }
+
+        boolean reached(int id) {
+            return seen[id] == query;
+        }
+
+        boolean hasFrontier() {
+            return head < tail;
+        }
+
+        int frontierSize() {
+            return tail - head;
+        }
+
+        void expandLevel() {
+            int levelEnd = tail;
+            while (head < levelEnd) {
+                current = queue[head++];
+                follow(vertices[current], stepHop);
+            }
+        }
+
+        void settleNext() {
+            current = heap.poll();
+            follow(vertices[current], stepLength);
+        }
+
+        private void follow(Vertex<V> vertex, Consumer<Edge<E, V>> step) {
+            if (outbound) {
+                digraph.forEachOutbound(vertex, step);
+            } else {
+                digraph.forEachIncident(vertex, step);
+            }
+        }
+
+        /* the queue only serves hop searches and the heap only length searches */
+        private void relax(Edge<E, V> e, double l, boolean byLength) {
+            Vertex<V> next = e.vertices()[outbound ? 1 : 0];
+            int id = next.id();
+            double distance = distances[current] + l;
+            if (!reached(id)) {
+                vertices[id] = next;
+                seen[id] = query;
+                distances[id] = distance;
+                parent[id] = current;
+                if (byLength) heap.offer(id, distance); else queue[tail++] = id;
+            } else if (byLength && distance < distances[id]) {
+                distances[id] = distance;
+                parent[id] = current;
+                heap.offer(id, distance);
+            }
+            if (other.reached(id) && distance + other.distances[id] < best) {
+                best = distance + other.distances[id];
+                meetForward = outbound ? current : id;
+                meetBackward = outbound ? id : current;
+            }
+        }
+    }
+}
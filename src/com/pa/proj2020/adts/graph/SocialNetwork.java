@@ -1,6 +1,7 @@
 package com.pa.proj2020.adts.graph;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
@@ -32,6 +33,7 @@ import java.util.Stack;
 public class SocialNetwork extends Application {
 
     private final DigraphImpl<User, Relation> digraph;
+    private final IncrementalConnectivity<User, Relation> connectivity;
     List<User> users;
     List<Interest> interests;
     List<AuxRelation> auxRelations;
@@ -40,7 +42,14 @@ public class SocialNetwork extends Application {
     MementoCareTaker mementoCareTaker;
 
     public SocialNetwork() {
-        digraph = new DigraphImpl<>();
+        /* relations are as strong as the number of interests they share */
+        digraph = new DigraphImpl<>(relation -> relation.interests.size());
+        /* the indirect relation checks look relations up by their two users, with edgeBetween */
+        digraph.setAdjacencyIndex(true);
+        /* groups of related users, kept up to date as users and relations are added. The tracker
+           is not thread-safe, so the digraph is only changed on the FX thread, which also reads it:
+           the import threads hand their inserts over with Platform.runLater */
+        connectivity = IncrementalConnectivity.attach(digraph);
         users = new LinkedList<>();
         this.interests = new LinkedList<>();
         this.auxRelations = new LinkedList<>();
@@ -287,34 +296,7 @@ public class SocialNetwork extends Application {
      * @param digraphSet our digraph
      */
     public void restoreState(DigraphImpl<User, Relation> digraphSet) {
-        System.out.println(digraphSet.vertices());
-        System.out.println(this.digraph.vertices());
-        List<Vertex<User>> vertexRemove = new LinkedList<>();
-        for (Vertex v : digraph.vertices()
-        ) {
-            User u1 = (User) v.element();
-            vertexRemove.add(v);
-            for (Vertex<User> v1 : digraphSet.vertices()
-            ) {
-                User user = getUser(v1.element().getUserNumber());
-                if (u1.getUserNumber() == user.getUserNumber()) {
-                    vertexRemove.remove(v);
-                }
-            }
-        }
-        for (Vertex<User> v : digraphSet.vertices()
-        ) {
-            User user = getUser(v.element().getUserNumber());
-            if (getUserVertex(user.getUserNumber()) == null) {
-                digraph.insertVertex(user);
-            }
-        }
-        for (Edge e : digraphSet.edges()
-        ) {
-            if (!this.digraph.edges().contains(e)) {
-                this.digraph.removeEdge(e);
-            }
-        }
+        GraphDiff.between(digraph, digraphSet).applyTo(digraph);
     }
 
     /**
@@ -393,18 +375,11 @@ public class SocialNetwork extends Application {
      *
      * @return myVertex
      */
-    private DigraphImpl.MyVertex getUserVertex(int id) throws InvalidVertexException {
-
-        for (Vertex<User> vertex : digraph.vertices()
-        ) {
-            DigraphImpl.MyVertex myVertex = digraph.checkVertex(vertex);
-            User user = (User) myVertex.getElement();
-            if (user.getUserNumber() == id) {
-                return myVertex;
-            }
+    private DigraphImpl.MyVertex getUserVertex(int id) {
+        User user = getUser(id);
+        if (user == null) return null;
 
-        }
-        return null;
+        return digraph.vertexOf(user);
     }
 
     /**
@@ -454,25 +429,17 @@ public class SocialNetwork extends Application {
                     try {
                         if (digraph.areAdjacent(vertex, newVertex) || digraph.areAdjacent(newVertex, myVertex)) {
 
-                            List<DigraphImpl.MyEdge> edges = newVertex.getEdges();
-                            for (DigraphImpl.MyEdge edge : edges
-                            ) {
-                                if (edge.vertexInbound == myVertex && edge.vertexOutbound == newVertex) {
-                                    Relation relation = (Relation) edge.element();
-                                    relation.insertInterest(interest);
-                                    break;
-                                }
-
+                            DigraphImpl.MyEdge edge = digraph.edgeBetween(newVertex, myVertex);
+                            if (edge != null) {
+                                Relation relation = (Relation) edge.element();
+                                relation.insertInterest(interest);
+                                digraph.setWeight(edge, relation.interests.size());
                             }
-                            edges = myVertex.getEdges();
-                            for (DigraphImpl.MyEdge edge : edges
-                            ) {
-                                if (edge.vertexInbound == newVertex && edge.vertexOutbound == myVertex) {
-                                    Relation relation = (Relation) edge.element();
-                                    relation.insertInterest(interest);
-                                    break;
-                                }
-
+                            edge = digraph.edgeBetween(myVertex, newVertex);
+                            if (edge != null) {
+                                Relation relation = (Relation) edge.element();
+                                relation.insertInterest(interest);
+                                digraph.setWeight(edge, relation.interests.size());
                             }
                         }
                         if (!digraph.areAdjacent(newVertex, myVertex) && !digraph.areAdjacent(myVertex, newVertex)) {
@@ -618,16 +585,17 @@ public class SocialNetwork extends Application {
                             try
                             {
                                 Thread.sleep(count*1000);
-                                try {
-                                    user.userType = 'a';
-                                    digraph.insertVertex(user);
-                                } catch (Exception ex1) {
-                                    System.out.println(ex1);
-                                }
                             } catch (InterruptedException e) {
                                 e.printStackTrace();
                             }
-                            updateDiGraph();
+                            /* the digraph is only changed on the FX thread, outside its transactions */
+                            Platform.runLater(() -> {
+                                user.userType = 'a';
+                                if (digraph.tryInsertVertex(user).isEmpty()) {
+                                    System.out.println("There's already a vertex with " + user);
+                                }
+                                updateDiGraph();
+                            });
                         }
                     }.start();
 
@@ -648,15 +616,15 @@ public class SocialNetwork extends Application {
                                 try
                                 {
                                     Thread.sleep(count*1000);
-                                    try {
-                                        digraph.insertEdge(auxrelation.outbound, auxrelation.inbound, auxrelation.relation);
-                                    } catch (Exception ex1) {
-                                        System.out.println(ex1);
-                                    }
                                 } catch (InterruptedException e1) {
                                     e1.printStackTrace();
                                 }
-                                updateDiGraph();
+                                Platform.runLater(() -> {
+                                    if (digraph.tryInsertEdge(auxrelation.outbound, auxrelation.inbound, auxrelation.relation).isEmpty()) {
+                                        System.out.println("Could not insert relation " + auxrelation.outbound + " -> " + auxrelation.inbound);
+                                    }
+                                    updateDiGraph();
+                                });
                             }
                         }.start();
                         count++;
@@ -685,14 +653,11 @@ public class SocialNetwork extends Application {
             @Override
             public void handle(ActionEvent e) {
 
-                for (Vertex<User> vertex : digraph.vertices()
-                ) {
-                    if (vertex.element().userNumber == Integer.parseInt(userTextField.getText())) {
-                        for (Interest interest : vertex.element().interests
-                        ) {
-                            check_new_indirect_relations(digraph.checkVertex(vertex), interest);
-                        }
-
+                DigraphImpl.MyVertex vertex = getUserVertex(Integer.parseInt(userTextField.getText()));
+                if (vertex != null) {
+                    for (Interest interest : ((User) vertex.element()).interests
+                    ) {
+                        check_new_indirect_relations(vertex, interest);
                     }
                 }
 
@@ -723,73 +688,70 @@ public class SocialNetwork extends Application {
                         System.out.println("Error" + ex);
                     }
 
-                    for (User user : users
-                    ) {
-                        if (user.userNumber == Integer.parseInt(userTextField.getText())) {
-                            user.userType = 'a';
-                            try {
-                                digraph.insertVertex(user);
-                                actionTarget.setFill(Color.GREEN);
-                                actionTarget.setText("User added.");
-                            } catch (InvalidVertexException invalidVertexException) {
-                                DigraphImpl.MyVertex myVertex = getUserVertex(Integer.parseInt(userTextField.getText()));
-                                try {
-                                    digraph.replace(myVertex, user);
+                    /* the user, its relations and the users they lead to are added as one unit */
+                    digraph.begin();
+                    try {
+                        for (User user : users
+                        ) {
+                            if (user.userNumber == Integer.parseInt(userTextField.getText())) {
+                                user.userType = 'a';
+                                if (digraph.tryInsertVertex(user).isPresent()) {
                                     actionTarget.setFill(Color.GREEN);
-                                    actionTarget.setText("Success changing user.");
-                                } catch (Exception e1) {
-                                    actionTarget.setFill(Color.FIREBRICK);
-                                    actionTarget.setText("Error adding user:" + e1.getMessage());
-                                }
-                            }
-                            for (AuxRelation relation : getRelationsUser(user)
-                            ) {
-
-                                if (relation.outbound == user) {
-                                    System.out.println(relation.inbound.userType);
+                                    actionTarget.setText("User added.");
+                                } else {
+                                    DigraphImpl.MyVertex myVertex = getUserVertex(Integer.parseInt(userTextField.getText()));
                                     try {
-                                        try {
-                                            if (relation.inbound.userType != 'a') {
-                                                relation.inbound.userType = 'i';
-                                                digraph.insertVertex(relation.inbound);
-                                            }
-
-                                        } catch (Exception ex) {
-
+                                        digraph.replace(myVertex, user);
+                                        actionTarget.setFill(Color.GREEN);
+                                        actionTarget.setText("Success changing user.");
+                                    } catch (Exception e1) {
+                                        actionTarget.setFill(Color.FIREBRICK);
+                                        actionTarget.setText("Error adding user:" + e1.getMessage());
+                                    }
+                                }
+                                for (AuxRelation relation : getRelationsUser(user)
+                                ) {
+
+                                    if (relation.outbound == user) {
+                                        System.out.println(relation.inbound.userType);
+                                        if (relation.inbound.userType != 'a') {
+                                            relation.inbound.userType = 'i';
+                                            digraph.tryInsertVertex(relation.inbound);
                                         }
 
-                                        digraph.insertEdge(relation.outbound, relation.inbound, relation.relation);
-                                        for (AuxRelation relation1 : getRelationsUser(relation.inbound)
-                                        ) {
-                                            if ((relation1.inbound.userType == 'a' || relation1.outbound.userType == 'a') && relation1.relation.direct)
-                                                try {
-                                                    digraph.insertEdge(relation1.outbound, relation1.inbound, relation1.relation);
-                                                } catch (Exception ex) {
-                                                }
+                                        if (digraph.tryInsertEdge(relation.outbound, relation.inbound, relation.relation).isPresent()) {
+                                            for (AuxRelation relation1 : getRelationsUser(relation.inbound)
+                                            ) {
+                                                if ((relation1.inbound.userType == 'a' || relation1.outbound.userType == 'a') && relation1.relation.direct)
+                                                    digraph.tryInsertEdge(relation1.outbound, relation1.inbound, relation1.relation);
 
+                                            }
+                                        } else {
+                                            System.out.println("Error inserting created relations " + relation.outbound + " -> " + relation.inbound);
                                         }
-                                    } catch (InvalidVertexException invalidVertexException) {
-                                        System.out.println("Error inserting created relations" + invalidVertexException);
+                                        // else if (relation.inbound == user) {
+                                        //   relation.outbound.userType = 'i';
+                                        //   try {
+                                        //       digraph.insertVertex(relation.outbound);
+                                        //       digraph.insertEdge(relation.inbound, relation.outbound, relation.relation);
+                                        //       for (AuxRelation relation1 : getRelationsUser(relation.outbound)
+                                        //       ) {
+                                        //           if (relation1.inbound.userType == 'a' || relation1.outbound.userType == 'a')
+                                        //               digraph.insertEdge(relation1.inbound, relation1.outbound, relation1.relation);
+                                        //       }
+                                        //   } catch (Exception ex) {
+                                        //       System.out.println("Error inserting created relations" + ex);
+                                        //   }
                                     }
-                                    // else if (relation.inbound == user) {
-                                    //   relation.outbound.userType = 'i';
-                                    //   try {
-                                    //       digraph.insertVertex(relation.outbound);
-                                    //       digraph.insertEdge(relation.inbound, relation.outbound, relation.relation);
-                                    //       for (AuxRelation relation1 : getRelationsUser(relation.outbound)
-                                    //       ) {
-                                    //           if (relation1.inbound.userType == 'a' || relation1.outbound.userType == 'a')
-                                    //               digraph.insertEdge(relation1.inbound, relation1.outbound, relation1.relation);
-                                    //       }
-                                    //   } catch (Exception ex) {
-                                    //       System.out.println("Error inserting created relations" + ex);
-                                    //   }
                                 }
+
+                                break;
                             }
 
-                            break;
                         }
-
+                        digraph.commit();
+                    } finally {
+                        if (digraph.inTransaction()) digraph.rollback();
                     }
 
                     updateDiGraph();
@@ -873,13 +835,19 @@ public class SocialNetwork extends Application {
 
         Label lblUsersTitle = new Label("Users:");
         grid.add(lblUsersTitle, 0, 0);
-/*
-        for (Vertex v:digraph.vertices()) {
-            V secondUser = v.element();
-            System.out.println(secondUser.name);
+
+        //most influential users, by PageRank over the relations
+        PageRank.Result<User> ranking = PageRank.of(digraph).run();
+        int row = 1;
+        for (Vertex<User> v : ranking.top(5)) {
+            grid.add(new Label(row + ". " + v.element().name), 0, row);
+            grid.add(new Label(String.format("%.3f", ranking.rank(v))), 1, row);
+            row++;
         }
 
-*/
+        Label lblGroups = new Label("Groups: " + connectivity.componentCount());
+        grid.add(lblGroups, 0, row);
+
         statisticsStage.show();
     }
 
@@ -1118,10 +1086,10 @@ public class SocialNetwork extends Application {
          */
         public DigraphImpl createMemento(DigraphImpl<User, Relation> digraph) {
             DigraphImpl memento = new DigraphImpl();
-            for (Object vertex : digraph.vertices()
+            for (Vertex<User> vertex : digraph.vertices()
             ) {
                 try {
-                    memento.insertVertex(vertex);
+                    memento.insertVertex(vertex.element());
                 } catch (Exception e) {
                 }
             }
@@ -1129,7 +1097,7 @@ public class SocialNetwork extends Application {
             ) {
                 try {
                     DigraphImpl.MyEdge myEdge = digraph.checkEdge(edge);
-                    memento.insertEdge(myEdge.vertexOutbound, myEdge.vertexInbound, myEdge.element);
+                    memento.insertEdge(myEdge.vertexOutbound.element, myEdge.vertexInbound.element, myEdge.element);
                 } catch (Exception e) {
                 }
 
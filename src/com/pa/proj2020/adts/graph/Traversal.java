@@ -0,0 +1,293 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Breadth-first or depth-first traversal of the vertices of a {@link Digraph}
+ * reachable from a start vertex.
+ * <br>
+ * A traversal can follow edges in their direction, against it or both ways,
+ * and can stop at a maximum depth. It is consumed either as an
+ * {@link Iterable} of vertices, or through a {@link Visitor} that also gets
+ * the edge each vertex was reached by and its depth, and can end the walk
+ * early. Every call to {@link #iterator()} or {@link #visit(Visitor)} walks
+ * the digraph again.
+ * <br>
+ * The state of a walk is kept in a bit set and in <code>int</code> queues or
+ * stacks indexed by vertex id, so no object is created per vertex visited.
+ * The digraph must not be changed during a walk.
+ *
+ * @param <V> Type of element stored at a vertex
+ * @param <E> Type of element stored at an edge
+ */
+public final class Traversal<V, E> implements Iterable<Vertex<V>> {
+
+    /**
+     * Which edges of a vertex lead to its neighbors
+     */
+    public enum Direction {
+        /** outbound edges, towards their inbound vertex */
+        OUTBOUND,
+        /** incident edges, back to their outbound vertex */
+        INBOUND,
+        /** both */
+        BOTH
+    }
+
+    /**
+     * Receives the vertices of a traversal in the order they are visited
+     *
+     * @param <V> Type of element stored at a vertex
+     * @param <E> Type of element stored at an edge
+     */
+    @FunctionalInterface
+    public interface Visitor<V, E> {
+
+        /**
+         * Visits a vertex
+         *
+         * @param vertex vertex reached
+         * @param via edge it was reached by, or null for the start vertex
+         * @param depth number of edges between the start vertex and this one
+         *
+         * @return true to go on, false to end the traversal
+         */
+        boolean visit(Vertex<V> vertex, Edge<E, V> via, int depth);
+    }
+
+    private final Digraph<V, E> digraph;
+    private final Vertex<V> start;
+    private final boolean depthFirst;
+    private Direction direction = Direction.OUTBOUND;
+    private int maxDepth = Integer.MAX_VALUE;
+
+    private Traversal(Digraph<V, E> digraph, Vertex<V> start, boolean depthFirst) {
+        /* fails early on a vertex that is not in the digraph */
+        digraph.outboundEdges(start);
+        this.digraph = digraph;
+        this.start = start;
+        this.depthFirst = depthFirst;
+    }
+
+    /**
+     * Creates a traversal that visits vertices by increasing depth
+     *
+     * @param digraph digraph to traverse
+     * @param start vertex to start from
+     *
+     * @return traversal, following outbound edges with no depth limit
+     *
+     * @exception InvalidVertexException if the vertex is not present in the digraph
+     */
+    public static <V, E> Traversal<V, E> breadthFirst(Digraph<V, E> digraph, Vertex<V> start)
+            throws InvalidVertexException {
+        return new Traversal<>(digraph, start, false);
+    }
+
+    /**
+     * Creates a traversal that goes as deep as it can before backtracking
+     *
+     * @param digraph digraph to traverse
+     * @param start vertex to start from
+     *
+     * @return traversal, following outbound edges with no depth limit
+     *
+     * @exception InvalidVertexException if the vertex is not present in the digraph
+     */
+    public static <V, E> Traversal<V, E> depthFirst(Digraph<V, E> digraph, Vertex<V> start)
+            throws InvalidVertexException {
+        return new Traversal<>(digraph, start, true);
+    }
+
+    /**
+     * Sets which edges to follow
+     *
+     * @param direction direction of the edges to follow
+     *
+     * @return this traversal
+     */
+    public Traversal<V, E> direction(Direction direction) {
+        if (direction == null) throw new NullPointerException();
+        this.direction = direction;
+        return this;
+    }
+
+    /**
+     * Sets the depth of the farthest vertices to visit
+     *
+     * @param maxDepth maximum depth, 0 to visit the start vertex only
+     *
+     * @return this traversal
+     */
+    public Traversal<V, E> maxDepth(int maxDepth) {
+        if (maxDepth < 0) throw new IllegalArgumentException("The depth must not be negative.");
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * Returns the reachable vertices, in visiting order
+     *
+     * @return iterator of vertices
+     */
+    @Override
+    public Iterator<Vertex<V>> iterator() {
+        return depthFirst ? new DepthFirstWalk() : new BreadthFirstWalk();
+    }
+
+    /**
+     * Walks the digraph, handing each vertex to the visitor until it asks to stop
+     *
+     * @param visitor visitor of the vertices
+     *
+     * @return false if the visitor ended the traversal, true if every vertex was visited
+     */
+    public boolean visit(Visitor<V, E> visitor) {
+        Walk walk = depthFirst ? new DepthFirstWalk() : new BreadthFirstWalk();
+        while (walk.hasNext()) {
+            Vertex<V> vertex = walk.next();
+            if (!visitor.visit(vertex, walk.via, walk.depth)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * State of one walk. Subclasses enqueue the neighbors found by
+     * {@link #expand(Vertex, int)} through {@link #reach(Vertex, Edge)}.
+     */
+    private abstract class Walk implements Iterator<Vertex<V>> {
+
+        /* vertices by id, filled in as they are reached */
+        final Vertex<V>[] vertices;
+        final BitSet visited;
+        /* edge and depth of the vertex last returned by next() */
+        Edge<E, V> via;
+        int depth;
+        /* depth of the neighbors being reached */
+        int reachDepth;
+
+        private final Consumer<Edge<E, V>> followOutbound = e -> reach(e.vertices()[1], e);
+        private final Consumer<Edge<E, V>> followIncident = e -> reach(e.vertices()[0], e);
+
+        @SuppressWarnings("unchecked")
+        Walk() {
+            int capacity = digraph.vertexIdCapacity();
+            this.vertices = (Vertex<V>[]) new Vertex<?>[capacity];
+            this.visited = new BitSet(capacity);
+        }
+
+        abstract void reach(Vertex<V> vertex, Edge<E, V> via);
+
+        void expand(Vertex<V> vertex, int depth) {
+            if (depth >= maxDepth) return;
+            reachDepth = depth + 1;
+            if (direction != Direction.INBOUND) digraph.forEachOutbound(vertex, followOutbound);
+            if (direction != Direction.OUTBOUND) digraph.forEachIncident(vertex, followIncident);
+        }
+    }
+
+    /**
+     * Queue of the ids of the vertices reached but not yet visited. Each
+     * vertex enters the queue once, when first reached.
+     */
+    private final class BreadthFirstWalk extends Walk {
+
+        private final int[] queue;
+        private final int[] depths;
+        private final Edge<E, V>[] vias;
+        private int head;
+        private int tail;
+
+        @SuppressWarnings("unchecked")
+        BreadthFirstWalk() {
+            this.queue = new int[vertices.length];
+            this.depths = new int[vertices.length];
+            this.vias = (Edge<E, V>[]) new Edge<?, ?>[vertices.length];
+            reach(start, null);
+        }
+
+        @Override
+        void reach(Vertex<V> vertex, Edge<E, V> via) {
+            int id = vertex.id();
+            if (visited.get(id)) return;
+            visited.set(id);
+            vertices[id] = vertex;
+            vias[id] = via;
+            depths[id] = reachDepth;
+            queue[tail++] = id;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return head < tail;
+        }
+
+        @Override
+        public Vertex<V> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int id = queue[head++];
+            via = vias[id];
+            depth = depths[id];
+            expand(vertices[id], depth);
+            return vertices[id];
+        }
+    }
+
+    /**
+     * Stack of the ids of the vertices reached, with the edge and depth they
+     * were reached by. A vertex may be pushed once per edge leading to it and
+     * is visited when first popped.
+     */
+    private final class DepthFirstWalk extends Walk {
+
+        private int[] stack = new int[16];
+        private int[] depths = new int[16];
+        private Edge<E, V>[] vias;
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        DepthFirstWalk() {
+            this.vias = (Edge<E, V>[]) new Edge<?, ?>[16];
+            reach(start, null);
+        }
+
+        @Override
+        void reach(Vertex<V> vertex, Edge<E, V> via) {
+            int id = vertex.id();
+            if (visited.get(id)) return;
+            if (size == stack.length) {
+                stack = Arrays.copyOf(stack, size * 2);
+                depths = Arrays.copyOf(depths, size * 2);
+                vias = Arrays.copyOf(vias, size * 2);
+            }
+            vertices[id] = vertex;
+            stack[size] = id;
+            depths[size] = reachDepth;
+            vias[size++] = via;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (size > 0 && visited.get(stack[size - 1])) {
+                vias[--size] = null;
+            }
+            return size > 0;
+        }
+
+        @Override
+        public Vertex<V> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int id = stack[--size];
+            via = vias[size];
+            vias[size] = null;
+            depth = depths[size];
+            visited.set(id);
+            expand(vertices[id], depth);
+            return vertices[id];
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package com.pa.proj2020.adts.graph;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * {@link Digraph} with multi-version concurrency control: writers take turns
+ * on a single working version, while readers work on immutable snapshots and
+ * never block nor are blocked.
+ * <br>
+ * Every change (or every committed transaction) publishes a new version,
+ * numbered from <code>1</code>. {@link #snapshot()} returns the latest version
+ * as a read-only {@link Digraph} that stays consistent no matter what writers
+ * do afterwards, so long analytics or rendering passes can run while the
+ * digraph keeps being changed. Versions are {@link PersistentDigraph}s, so a
+ * snapshot costs O(1) to take and memory proportional to the changes made
+ * after it, for as long as it is referenced.
+ * <br>
+ * The read methods of this class read the latest version, except in the thread
+ * that holds an open transaction, which reads its own uncommitted changes.
+ * Vertex and edge references are shared between versions, so a reference
+ * obtained from a snapshot can be used to change the digraph, as long as the
+ * vertex or edge still exists.
+ * <br>
+ * Vertex and edge elements must not be <i>null</i>.
+ *
+ * @param <V> Type of element stored at a vertex
+ * @param <E> Type of element stored at an edge
+ */
+public class VersionedDigraph<V, E> implements Digraph<V, E> {
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    /* guarded by writeLock */
+    private final PersistentDigraph<V, E> working = new PersistentDigraph<>();
+    private long nextVersion = 1;
+
+    private volatile Snapshot<V, E> latest;
+    private final Map<Long, Snapshot<V, E>> history = new ConcurrentSkipListMap<>();
+    private final int historySize;
+
+    public VersionedDigraph() {
+        this(1);
+    }
+
+    /**
+     * Creates an empty digraph that keeps the given number of most recent
+     * versions available through {@link #snapshot(long)}
+     *
+     * @param historySize number of versions to keep, at least 1
+     */
+    public VersionedDigraph(int historySize) {
+        if (historySize < 1) throw new IllegalArgumentException("The history must keep at least one version.");
+        this.historySize = historySize;
+        this.latest = new Snapshot<>(0, working.snapshot());
+        history.put(0L, latest);
+    }
+
+    /**
+     * Returns the number of the latest version
+     *
+     * @return version number, 0 before the first change
+     */
+    public long version() {
+        return latest.version;
+    }
+
+    /**
+     * Returns the latest version, without waiting for writers
+     *
+     * @return read-only snapshot
+     */
+    public Snapshot<V, E> snapshot() {
+        return latest;
+    }
+
+    /**
+     * Returns a version that is still kept in the history
+     *
+     * @param version version number
+     *
+     * @return read-only snapshot
+     *
+     * @exception IllegalArgumentException if the version does not exist or is
+     *                                     no longer kept
+     */
+    public Snapshot<V, E> snapshot(long version) {
+        Snapshot<V, E> snapshot = history.get(version);
+        if (snapshot == null) throw new IllegalArgumentException("Version " + version + " is not available.");
+        return snapshot;
+    }
+
+    /* must hold writeLock */
+    private void publish() {
+        Snapshot<V, E> snapshot = new Snapshot<>(nextVersion++, working.snapshot());
+        history.put(snapshot.version, snapshot);
+        history.remove(snapshot.version - historySize);
+        latest = snapshot;
+    }
+
+    /**
+     * Applies a change to the working version and publishes it, unless it
+     * belongs to an open transaction
+     */
+    private <T> T write(Supplier<T> change) {
+        writeLock.lock();
+        try {
+            T result = change.get();
+            if (!working.inTransaction()) publish();
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private Digraph<V, E> reader() {
+        return writeLock.isHeldByCurrentThread() ? working : latest.digraph;
+    }
+
+    /**
+     * Starts a transaction. Other writers wait until it ends; readers keep
+     * seeing the latest version until it commits.
+     *
+     * @exception IllegalStateException if this thread already has an open transaction
+     */
+    @Override
+    public void begin() {
+        writeLock.lock();
+        try {
+            working.begin();
+        } catch (RuntimeException e) {
+            writeLock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Ends the open transaction, publishing its changes as a single version
+     *
+     * @exception IllegalStateException if this thread has no open transaction
+     */
+    @Override
+    public void commit() {
+        if (!inTransaction()) throw new IllegalStateException("There is no open transaction.");
+        try {
+            working.commit();
+            publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void rollback() {
+        if (!inTransaction()) throw new IllegalStateException("There is no open transaction.");
+        try {
+            working.rollback();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean inTransaction() {
+        return writeLock.isHeldByCurrentThread() && working.inTransaction();
+    }
+
+    @Override
+    public int numVertices() {
+        return reader().numVertices();
+    }
+
+    @Override
+    public int numEdges() {
+        return reader().numEdges();
+    }
+
+    @Override
+    public int vertexIdCapacity() {
+        return reader().vertexIdCapacity();
+    }
+
+    @Override
+    public int edgeIdCapacity() {
+        return reader().edgeIdCapacity();
+    }
+
+    @Override
+    public Collection<Vertex<V>> vertices() {
+        return reader().vertices();
+    }
+
+    @Override
+    public Collection<Edge<E, V>> edges() {
+        return reader().edges();
+    }
+
+    @Override
+    public Collection<Edge<E, V>> incidentEdges(Vertex<V> inbound) throws InvalidVertexException {
+        return reader().incidentEdges(inbound);
+    }
+
+    @Override
+    public Collection<Edge<E, V>> outboundEdges(Vertex<V> outbound) throws InvalidVertexException {
+        return reader().outboundEdges(outbound);
+    }
+
+    @Override
+    public Vertex<V> opposite(Vertex<V> v, Edge<E, V> e) throws InvalidVertexException, InvalidEdgeException {
+        return reader().opposite(v, e);
+    }
+
+    @Override
+    public boolean areAdjacent(Vertex<V> outbound, Vertex<V> inbound) throws InvalidVertexException {
+        return reader().areAdjacent(outbound, inbound);
+    }
+
+    @Override
+    public Optional<Vertex<V>> findVertex(V vElement) {
+        return reader().findVertex(vElement);
+    }
+
+    @Override
+    public boolean containsVertex(V vElement) {
+        return reader().containsVertex(vElement);
+    }
+
+    @Override
+    public Optional<Edge<E, V>> findEdge(V outboundElement, V inboundElement) {
+        return reader().findEdge(outboundElement, inboundElement);
+    }
+
+    @Override
+    public Vertex<V> insertVertex(V vElement) throws InvalidVertexException {
+        return write(() -> working.insertVertex(vElement));
+    }
+
+    @Override
+    public Edge<E, V> insertEdge(Vertex<V> outbound, Vertex<V> inbound, E edgeElement)
+            throws InvalidVertexException, InvalidEdgeException {
+        return write(() -> working.insertEdge(outbound, inbound, edgeElement));
+    }
+
+    @Override
+    public Edge<E, V> insertEdge(V outboundElement, V inboundElement, E edgeElement)
+            throws InvalidVertexException, InvalidEdgeException {
+        return write(() -> working.insertEdge(outboundElement, inboundElement, edgeElement));
+    }
+
+    @Override
+    public Optional<Vertex<V>> tryInsertVertex(V vElement) {
+        return write(() -> working.tryInsertVertex(vElement));
+    }
+
+    @Override
+    public Optional<Edge<E, V>> tryInsertEdge(V outboundElement, V inboundElement, E edgeElement) {
+        return write(() -> working.tryInsertEdge(outboundElement, inboundElement, edgeElement));
+    }
+
+    @Override
+    public V removeVertex(Vertex<V> v) throws InvalidVertexException {
+        return write(() -> working.removeVertex(v));
+    }
+
+    @Override
+    public E removeEdge(Edge<E, V> e) throws InvalidEdgeException {
+        return write(() -> working.removeEdge(e));
+    }
+
+    @Override
+    public V replace(Vertex<V> v, V newElement) throws InvalidVertexException {
+        return write(() -> working.replace(v, newElement));
+    }
+
+    @Override
+    public E replace(Edge<E, V> e, E newElement) throws InvalidEdgeException {
+        return write(() -> working.replace(e, newElement));
+    }
+
+    @Override
+    public String toString() {
+        return "VersionedDigraph{version=" + version() + ", " + numVertices() + " vertices, " + numEdges() + " edges}";
+    }
+
+    /**
+     * Read-only version of a {@link VersionedDigraph}. Methods that would change
+     * it throw {@link UnsupportedOperationException}.
+     *
+     * @param <V> Type of element stored at a vertex
+     * @param <E> Type of element stored at an edge
+     */
+    public static final class Snapshot<V, E> implements Digraph<V, E> {
+
+        private final long version;
+        private final PersistentDigraph<V, E> digraph;
+
+        private Snapshot(long version, PersistentDigraph<V, E> digraph) {
+            this.version = version;
+            this.digraph = digraph;
+        }
+
+        /**
+         * Returns the number of this version
+         *
+         * @return version number
+         */
+        public long version() {
+            return version;
+        }
+
+        @Override
+        public int numVertices() {
+            return digraph.numVertices();
+        }
+
+        @Override
+        public int numEdges() {
+            return digraph.numEdges();
+        }
+
+        @Override
+        public int vertexIdCapacity() {
+            return digraph.vertexIdCapacity();
+        }
+
+        @Override
+        public int edgeIdCapacity() {
+            return digraph.edgeIdCapacity();
+        }
+
+        @Override
+        public Collection<Vertex<V>> vertices() {
+            return digraph.vertices();
+        }
+
+        @Override
+        public Collection<Edge<E, V>> edges() {
+            return digraph.edges();
+        }
+
+        @Override
+        public Collection<Edge<E, V>> incidentEdges(Vertex<V> inbound) throws InvalidVertexException {
+            return digraph.incidentEdges(inbound);
+        }
+
+        @Override
+        public Collection<Edge<E, V>> outboundEdges(Vertex<V> outbound) throws InvalidVertexException {
+            return digraph.outboundEdges(outbound);
+        }
+
+        @Override
+        public Vertex<V> opposite(Vertex<V> v, Edge<E, V> e) throws InvalidVertexException, InvalidEdgeException {
+            return digraph.opposite(v, e);
+        }
+
+        @Override
+        public boolean areAdjacent(Vertex<V> outbound, Vertex<V> inbound) throws InvalidVertexException {
+            return digraph.areAdjacent(outbound, inbound);
+        }
+
+        @Override
+        public Optional<Vertex<V>> findVertex(V vElement) {
+            return digraph.findVertex(vElement);
+        }
+
+        @Override
+        public boolean containsVertex(V vElement) {
+            return digraph.containsVertex(vElement);
+        }
+
+        @Override
+        public Optional<Edge<E, V>> findEdge(V outboundElement, V inboundElement) {
+            return digraph.findEdge(outboundElement, inboundElement);
+        }
+
+        @Override
+        public Vertex<V> insertVertex(V vElement) {
+            throw readOnly();
+        }
+
+        @Override
+        public Edge<E, V> insertEdge(Vertex<V> outbound, Vertex<V> inbound, E edgeElement) {
+            throw readOnly();
+        }
+
+        @Override
+        public Edge<E, V> insertEdge(V outboundElement, V inboundElement, E edgeElement) {
+            throw readOnly();
+        }
+
+        @Override
+        public Optional<Vertex<V>> tryInsertVertex(V vElement) {
+            throw readOnly();
+        }
+
+        @Override
+        public Optional<Edge<E, V>> tryInsertEdge(V outboundElement, V inboundElement, E edgeElement) {
+            throw readOnly();
+        }
+
+        @Override
+        public V removeVertex(Vertex<V> v) {
+            throw readOnly();
+        }
+
+        @Override
+        public E removeEdge(Edge<E, V> e) {
+            throw readOnly();
+        }
+
+        @Override
+        public V replace(Vertex<V> v, V newElement) {
+            throw readOnly();
+        }
+
+        @Override
+        public E replace(Edge<E, V> e, E newElement) {
+            throw readOnly();
+        }
+
+        private static UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("Snapshots are read-only.");
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{version=" + version + ", " + numVertices() + " vertices, " + numEdges() + " edges}";
+        }
+    }
+}
@@ -40,4 +40,16 @@ public interface Vertex<V> {
      * @return      stored element
      */
     public V element();
+
+    /**
+     * Returns the id of the vertex in its graph.
+     * 
+     * Ids are dense: they lie between <code>0</code> and
+     * {@link Graph#vertexIdCapacity()} <code>- 1</code>, so per-vertex data can
+     * be kept in arrays indexed by id. An id stays the same while the vertex
+     * belongs to the graph, but may be given to a new vertex after removal.
+     * 
+     * @return      vertex id
+     */
+    public int id();
 }
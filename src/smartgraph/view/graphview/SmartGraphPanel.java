@@ -27,12 +27,15 @@ package smartgraph.view.graphview;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.logging.Level;
@@ -55,9 +58,12 @@ import com.pa.proj2020.adts.graph.Graph;
 import com.pa.proj2020.adts.graph.Digraph;
 import com.pa.proj2020.adts.graph.Vertex;
 import com.pa.proj2020.adts.graph.Edge;
+import com.pa.proj2020.adts.graph.GraphEvent;
+import com.pa.proj2020.adts.graph.InvalidVertexException;
 
 import java.net.URI;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 
@@ -68,7 +74,11 @@ import java.util.concurrent.FutureTask;
  * <br>
  * Whenever changes to the underlying graph are made, you should call
  * {@link #update()} to force the rendering of any new elements and, also, the
- * removal of others, if applicable.
+ * removal of others, if applicable. If the graph publishes change events
+ * (see {@link Graph#addGraphListener}), an update only applies the changes made
+ * since the previous one; otherwise, it compares the whole graph with what is
+ * plotted. Either way, every label is refreshed from its element, so elements
+ * changed in place are shown as they are now.
  * <br>
  * Vertices can be dragged by the user, if configured to do so. Consequently, 
  * any connected edges will also adjust automatically to the new vertex positioning.
@@ -95,6 +105,9 @@ public class SmartGraphPanel<V, E> extends Pane {
     private final Map<Tuple<SmartGraphVertexNode>, Integer> placedEdges = new HashMap<>();
     private boolean initialized = false;
     private final boolean edgesWithArrows;
+    /* changes published by the graph and not yet plotted, if the graph publishes them */
+    private final Queue<GraphEvent<V, E>> pendingEvents = new ConcurrentLinkedQueue<>();
+    private final boolean trackingEvents;
     /*
     INTERACTION WITH VERTICES AND EDGES
      */
@@ -194,6 +207,16 @@ public class SmartGraphPanel<V, E> extends Pane {
         //set stylesheet and class
         loadStylesheet(cssFile);
 
+        //listen before plotting, so no change is missed; events for plotted elements are ignored
+        boolean tracking;
+        try {
+            theGraph.addGraphListener(pendingEvents::addAll);
+            tracking = true;
+        } catch (UnsupportedOperationException e) {
+            tracking = false;
+        }
+        this.trackingEvents = tracking;
+
         initNodes();
 
         enableDoubleClickListener();
@@ -357,11 +380,76 @@ public class SmartGraphPanel<V, E> extends Pane {
     }
 
     private synchronized void updateNodes() {
-        removeNodes();
-        insertNodes();
+        if (trackingEvents) {
+            applyPendingEvents();
+        } else {
+            removeNodes();
+            insertNodes(unplottedVertices(), unplottedEdges());
+        }
+        //elements may change in place, without an event, so every label is refreshed
         updateLabels();
     }
 
+    /**
+     * Plots the vertices and edges added and removed since the last update,
+     * as published by the graph, without comparing the whole graph with the
+     * plotted nodes.
+     */
+    private void applyPendingEvents() {
+        Set<Vertex<V>> addedVertices = new LinkedHashSet<>();
+        Set<Vertex<V>> removedVertices = new HashSet<>();
+        Set<Edge<E, V>> addedEdges = new LinkedHashSet<>();
+        Set<Edge<E, V>> removedEdges = new HashSet<>();
+
+        //reduce the events to their net effect
+        GraphEvent<V, E> event;
+        while ((event = pendingEvents.poll()) != null) {
+            switch (event.type()) {
+                case VERTEX_ADDED:
+                    addedVertices.add(event.vertex());
+                    break;
+                case VERTEX_REMOVED:
+                    if (!addedVertices.remove(event.vertex())) removedVertices.add(event.vertex());
+                    break;
+                case EDGE_ADDED:
+                    addedEdges.add(event.edge());
+                    break;
+                case EDGE_REMOVED:
+                    if (!addedEdges.remove(event.edge())) removedEdges.add(event.edge());
+                    break;
+                default:
+                    //replacements only change labels, which are refreshed after the events
+                    break;
+            }
+        }
+
+        for (Edge<E, V> e : removedEdges) {
+            SmartGraphEdgeBase edgeNode = edgeNodes.remove(e);
+            if (edgeNode != null) {
+                removeEdge(edgeNode);
+            }
+        }
+
+        Set<SmartGraphVertexNode<V>> verticesToRemove = new HashSet<>();
+        for (Vertex<V> v : removedVertices) {
+            SmartGraphVertexNode<V> vertexNode = vertexNodes.remove(v);
+            if (vertexNode != null) {
+                verticesToRemove.add(vertexNode);
+                removeVertice(vertexNode);
+            }
+        }
+        if (!verticesToRemove.isEmpty()) {
+            for (SmartGraphVertexNode<V> v : vertexNodes.values()) {
+                v.removeAdjacentVertices(verticesToRemove);
+            }
+        }
+
+        //changes made while the panel was being created may already be plotted
+        addedVertices.removeIf(vertexNodes::containsKey);
+        addedEdges.removeIf(edgeNodes::containsKey);
+        insertNodes(addedVertices, addedEdges);
+    }
+
     /*
     INTERACTION WITH VERTICES AND EDGES
      */
@@ -512,8 +600,7 @@ public class SmartGraphPanel<V, E> extends Pane {
         }
     }
 
-    private void insertNodes() {
-        Collection<Vertex<V>> unplottedVertices = unplottedVertices();
+    private void insertNodes(Collection<Vertex<V>> unplottedVertices, Collection<Edge<E, V>> unplottedEdges) {
 
         List<SmartGraphVertexNode<V>> newVertices = null;
 
@@ -530,7 +617,13 @@ public class SmartGraphPanel<V, E> extends Pane {
                 //Place new nodes in the vicinity of existing adjacent ones;
                 //Place them in the middle of the plot, otherwise.
                 double x, y;
-                Collection<Edge<E, V>> incidentEdges = theGraph.incidentEdges(vertex);
+                Collection<Edge<E, V>> incidentEdges;
+                try {
+                    incidentEdges = theGraph.incidentEdges(vertex);
+                } catch (InvalidVertexException e) {
+                    /* already removed again; the pending removal will be applied in the next update */
+                    incidentEdges = Collections.emptyList();
+                }
                 if (incidentEdges.isEmpty()) {
                     /* not (yet) connected, put in the middle of the plot */
                     x = mx;
@@ -570,7 +663,6 @@ public class SmartGraphPanel<V, E> extends Pane {
 
         }
 
-        Collection<Edge<E, V>> unplottedEdges = unplottedEdges();
         if (!unplottedEdges.isEmpty()) {
             for (Edge<E, V> edge : unplottedEdges) {
 
@@ -689,26 +781,29 @@ public class SmartGraphPanel<V, E> extends Pane {
      * Updates node's labels
      */
     private void updateLabels() {
-        theGraph.vertices().forEach((v) -> {
-            SmartGraphVertexNode<V> vertexNode = vertexNodes.get(v);
-            if (vertexNode != null) {
-                SmartLabel label = vertexNode.getAttachedLabel();
-                if(label != null) {
-                    label.setText(v.element() != null ? v.element().toString() : "<NULL>");
-                }
-                
-            }
-        });
+        theGraph.vertices().forEach(this::updateVertexLabel);
         
-        theGraph.edges().forEach((e) -> {
-            SmartGraphEdgeBase edgeNode = edgeNodes.get(e);
-            if (edgeNode != null) {
-                SmartLabel label = edgeNode.getAttachedLabel();
-                if (label != null) {
-                    label.setText(e.element() != null ? e.element().toString() : "<NULL>");
-                }
+        theGraph.edges().forEach(this::updateEdgeLabel);
+    }
+
+    private void updateVertexLabel(Vertex<V> v) {
+        SmartGraphVertexNode<V> vertexNode = vertexNodes.get(v);
+        if (vertexNode != null) {
+            SmartLabel label = vertexNode.getAttachedLabel();
+            if(label != null) {
+                label.setText(v.element() != null ? v.element().toString() : "<NULL>");
             }
-        });
+        }
+    }
+
+    private void updateEdgeLabel(Edge<E, V> e) {
+        SmartGraphEdgeBase edgeNode = edgeNodes.get(e);
+        if (edgeNode != null) {
+            SmartLabel label = edgeNode.getAttachedLabel();
+            if (label != null) {
+                label.setText(e.element() != null ? e.element().toString() : "<NULL>");
+            }
+        }
     }
     
     /**